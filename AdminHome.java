@@ -5,13 +5,20 @@ import java.awt.event.*;
 import javax.swing.*;
 import javax.swing.table.*;
 import javax.swing.border.LineBorder;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class AdminHome extends JFrame {
 
     private JPanel contentPane;
     private JTable table;
     private JButton btnAddQuestion, btnDeleteQuestion, btnUpdateQuestion, btnViewReports, btnViewQuestions, btnLogout;
+    private final UserSession userSession;
     private String adminUsername;
     private JLabel lblAverageScore;
     private JScrollPane scrollPane;
@@ -29,23 +36,23 @@ public class AdminHome extends JFrame {
     private static final Color TEXT_LIGHT = Color.WHITE; // White for text on dark backgrounds
     private static final Color BORDER_SUBTLE = new Color(200, 200, 200); // Light gray for subtle borders
 
+    // Rows per page and pages kept in memory for the paged data view
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_RESIDENT_PAGES = 20;
+
     // Table specific colors
     private static final Color TABLE_ROW_EVEN = SECONDARY_COLOR; // Very light background
     private static final Color TABLE_ROW_ODD = new Color(230, 235, 240); // Slightly darker for odd rows
     private static final Color TABLE_SELECTION_COLOR = new Color(173, 216, 230); // Light blue for selected row
 
-    // Database connection details
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/quiz_app_db";
-    private static final String DB_USER = "quiz_user";
-    private static final String DB_PASSWORD = "secure_quiz_pw";
-
     /**
      * Constructor for the AdminHome frame.
      * Initializes the UI components and sets up event listeners.
-     * @param username The username of the logged-in administrator.
+     * @param userSession The logged-in administrator's session.
      */
-    public AdminHome(String username) {
-        this.adminUsername = username;
+    public AdminHome(UserSession userSession) {
+        this.userSession = userSession;
+        this.adminUsername = userSession.getUsername();
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setTitle("Admin Dashboard - Quiz Application");
         setSize(1200, 750);
@@ -63,6 +70,58 @@ public class AdminHome extends JFrame {
         exitMenuItem.setForeground(TEXT_LIGHT);
         exitMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         exitMenuItem.addActionListener(e -> System.exit(0));
+        JMenuItem importMenuItem = new JMenuItem("Import Questions...");
+        importMenuItem.setBackground(PRIMARY_COLOR.brighter());
+        importMenuItem.setForeground(TEXT_LIGHT);
+        importMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        importMenuItem.addActionListener(e -> {
+            if (checkAccess(false)) {
+                importQuestions();
+            }
+        });
+        fileMenu.add(importMenuItem);
+        JMenuItem exportPackMenuItem = new JMenuItem("Export Offline Question Pack...");
+        exportPackMenuItem.setBackground(PRIMARY_COLOR.brighter());
+        exportPackMenuItem.setForeground(TEXT_LIGHT);
+        exportPackMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        exportPackMenuItem.addActionListener(e -> {
+            if (checkAccess(false)) {
+                exportQuestionPack();
+            }
+        });
+        fileMenu.add(exportPackMenuItem);
+        JMenuItem exportScoresMenuItem = new JMenuItem("Export Scores...");
+        exportScoresMenuItem.setBackground(PRIMARY_COLOR.brighter());
+        exportScoresMenuItem.setForeground(TEXT_LIGHT);
+        exportScoresMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        exportScoresMenuItem.addActionListener(e -> {
+            if (checkAccess(false)) {
+                exportTable(TableExporter.Table.SCORES);
+            }
+        });
+        fileMenu.add(exportScoresMenuItem);
+        JMenuItem exportQuestionsMenuItem = new JMenuItem("Export Questions...");
+        exportQuestionsMenuItem.setBackground(PRIMARY_COLOR.brighter());
+        exportQuestionsMenuItem.setForeground(TEXT_LIGHT);
+        exportQuestionsMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        exportQuestionsMenuItem.addActionListener(e -> {
+            if (checkAccess(false)) {
+                exportTable(TableExporter.Table.QUESTIONS);
+            }
+        });
+        fileMenu.add(exportQuestionsMenuItem);
+        if (userSession.isAdmin()) {
+            JMenuItem rolesMenuItem = new JMenuItem("Manage User Roles...");
+            rolesMenuItem.setBackground(PRIMARY_COLOR.brighter());
+            rolesMenuItem.setForeground(TEXT_LIGHT);
+            rolesMenuItem.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            rolesMenuItem.addActionListener(e -> {
+                if (checkAccess(true)) {
+                    openManageRolesDialog();
+                }
+            });
+            fileMenu.add(rolesMenuItem);
+        }
         fileMenu.add(exitMenuItem);
         menuBar.add(fileMenu);
         setJMenuBar(menuBar);
@@ -113,27 +172,47 @@ public class AdminHome extends JFrame {
         btnAddQuestion = createStyledButton("Add Question", ACCENT_GREEN);
         gbcButtons.gridx = 0; gbcButtons.gridy = 0;
         buttonPanel.add(btnAddQuestion, gbcButtons);
-        btnAddQuestion.addActionListener(e -> openAddQuestionDialog());
+        btnAddQuestion.addActionListener(e -> {
+            if (checkAccess(false)) {
+                openAddQuestionDialog();
+            }
+        });
 
         btnDeleteQuestion = createStyledButton("Delete Question", DANGER_RED);
         gbcButtons.gridx = 1; gbcButtons.gridy = 0;
         buttonPanel.add(btnDeleteQuestion, gbcButtons);
-        btnDeleteQuestion.addActionListener(e -> openDeleteQuestionDialog());
+        btnDeleteQuestion.addActionListener(e -> {
+            if (checkAccess(false)) {
+                openDeleteQuestionDialog();
+            }
+        });
 
         btnUpdateQuestion = createStyledButton("Update Question", INFO_BLUE);
         gbcButtons.gridx = 2; gbcButtons.gridy = 0;
         buttonPanel.add(btnUpdateQuestion, gbcButtons);
-        btnUpdateQuestion.addActionListener(e -> openUpdateQuestionDialog());
+        btnUpdateQuestion.addActionListener(e -> {
+            if (checkAccess(false)) {
+                openUpdateQuestionDialog();
+            }
+        });
 
         btnViewReports = createStyledButton("View User Reports", BUTTON_VIEW_COLOR);
         gbcButtons.gridx = 3; gbcButtons.gridy = 0;
         buttonPanel.add(btnViewReports, gbcButtons);
-        btnViewReports.addActionListener(e -> viewReports());
+        btnViewReports.addActionListener(e -> {
+            if (checkAccess(false)) {
+                viewReports();
+            }
+        });
 
         btnViewQuestions = createStyledButton("View All Questions", BUTTON_VIEW_COLOR);
         gbcButtons.gridx = 4; gbcButtons.gridy = 0;
         buttonPanel.add(btnViewQuestions, gbcButtons);
-        btnViewQuestions.addActionListener(e -> viewQuestions());
+        btnViewQuestions.addActionListener(e -> {
+            if (checkAccess(false)) {
+                viewQuestions();
+            }
+        });
 
         centralContainerPanel.add(buttonPanel);
 
@@ -236,12 +315,91 @@ public class AdminHome extends JFrame {
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to log out?", "Confirm Logout", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
         if (confirm == JOptionPane.YES_OPTION) {
+            DatabaseConnection.getSessionStore().invalidate(userSession);
             Login loginPage = new Login(); // Assuming Login class is available
             loginPage.setVisible(true);
             dispose(); // Close AdminHome
         }
     }
 
+    /**
+     * Re-checks the signed-in user's role before a console action, so a role revoked
+     * while the console is open takes effect. The role comes from the repository's
+     * short-lived role cache, so this rarely queries. A user who is no longer staff,
+     * or whose session has expired, is sent back to the Login page.
+     *
+     * @param adminOnly true if moderators may not perform the action
+     * @return true if the action may proceed
+     */
+    private boolean checkAccess(boolean adminOnly) {
+        String role;
+        try {
+            role = DatabaseConnection.getSessionStore().isActive(userSession)
+                    ? DatabaseConnection.getRepository().resolveRole(adminUsername) : null;
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Could not verify your access: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+            return false;
+        }
+        if (!UserSession.isStaffRole(role)) {
+            JOptionPane.showMessageDialog(this, "Your session has expired or your admin access was removed. Please log in again.",
+                    "Access Ended", JOptionPane.WARNING_MESSAGE);
+            DatabaseConnection.getSessionStore().invalidate(userSession);
+            new Login().setVisible(true);
+            dispose();
+            return false;
+        }
+        if (adminOnly && !UserSession.ROLE_ADMIN.equals(role)) {
+            JOptionPane.showMessageDialog(this, "Only administrators can do this.", "Not Allowed", JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Opens a dialog to change a user's role. Admin accounts are made here rather
+     * than hard-coded, and a changed role is picked up at the user's next check.
+     */
+    private void openManageRolesDialog() {
+        JPanel panel = new JPanel(new GridLayout(2, 2, 10, 10));
+        panel.setBackground(SECONDARY_COLOR);
+        JTextField usernameField = new JTextField(20);
+        JComboBox<String> roleComboBox = new JComboBox<>(new String[]{
+                UserSession.ROLE_PLAYER, UserSession.ROLE_MODERATOR, UserSession.ROLE_ADMIN});
+        styleDialogField(usernameField);
+        styleDialogComboBox(roleComboBox);
+        panel.add(new JLabel("Username:"));
+        panel.add(usernameField);
+        panel.add(new JLabel("Role:"));
+        panel.add(roleComboBox);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Manage User Roles", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String username = usernameField.getText().trim();
+        String role = (String) roleComboBox.getSelectedItem();
+        if (username.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter a username.", "Input Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (username.equalsIgnoreCase(adminUsername) && !UserSession.ROLE_ADMIN.equals(role)) {
+            // Keeps the last admin from locking everyone out
+            JOptionPane.showMessageDialog(this, "You cannot remove your own admin role.", "Not Allowed", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        try {
+            if (DatabaseConnection.getRepository().updateRole(username, role)) {
+                JOptionPane.showMessageDialog(this, username + " is now " + role + ".");
+            } else {
+                JOptionPane.showMessageDialog(this, "No user found with username: " + username, "Not Found", JOptionPane.INFORMATION_MESSAGE);
+            }
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Error updating role: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Opens a dialog to add a new question to the database.
      * Collects question details and inserts them into the 'questions' table.
@@ -259,7 +417,7 @@ public class AdminHome extends JFrame {
         JTextField optionBField = new JTextField(20);
         JTextField optionCField = new JTextField(20);
         JTextField optionDField = new JTextField(20);
-        JTextField correctAnswerField = new JTextField(20);
+        JComboBox<String> correctOptionComboBox = new JComboBox<>(new String[]{"A", "B", "C", "D"});
         JComboBox<String> difficultyComboBox = new JComboBox<>(new String[]{"Easy", "Medium", "Hard"});
 
         // Apply consistent styling to dialog components
@@ -268,7 +426,7 @@ public class AdminHome extends JFrame {
         styleDialogField(optionBField);
         styleDialogField(optionCField);
         styleDialogField(optionDField);
-        styleDialogField(correctAnswerField);
+        styleDialogComboBox(correctOptionComboBox);
         styleDialogComboBox(difficultyComboBox);
 
         int row = 0;
@@ -293,8 +451,8 @@ public class AdminHome extends JFrame {
         gbc.gridx = 1; panel.add(optionDField, gbc);
 
         row++; gbc.gridx = 0; gbc.gridy = row;
-        panel.add(createDialogLabel("Correct Answer:"), gbc);
-        gbc.gridx = 1; panel.add(correctAnswerField, gbc);
+        panel.add(createDialogLabel("Correct Option:"), gbc);
+        gbc.gridx = 1; panel.add(correctOptionComboBox, gbc);
 
         row++; gbc.gridx = 0; gbc.gridy = row;
         panel.add(createDialogLabel("Difficulty:"), gbc);
@@ -309,29 +467,18 @@ public class AdminHome extends JFrame {
             String optionB = optionBField.getText().trim();
             String optionC = optionCField.getText().trim();
             String optionD = optionDField.getText().trim();
-            String correctAnswer = correctAnswerField.getText().trim();
+            int correctOption = correctOptionComboBox.getSelectedIndex();
             String difficulty = (String) difficultyComboBox.getSelectedItem();
 
-            if (question.isEmpty() || optionA.isEmpty() || optionB.isEmpty() ||
-                    optionC.isEmpty() || optionD.isEmpty() || correctAnswer.isEmpty() ||
-                    difficulty == null || difficulty.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "All fields are required to add a question.", "Input Error", JOptionPane.WARNING_MESSAGE);
+            String problem = QuestionImporter.validate(question, optionA, optionB, optionC, optionD, correctOption, difficulty);
+            if (problem != null) {
+                JOptionPane.showMessageDialog(this, problem, "Input Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
 
-            String sql = "INSERT INTO questions (question, optionA, optionB, optionC, optionD, correctAnswer, difficulty) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-                preparedStatement.setString(1, question);
-                preparedStatement.setString(2, optionA);
-                preparedStatement.setString(3, optionB);
-                preparedStatement.setString(4, optionC);
-                preparedStatement.setString(5, optionD);
-                preparedStatement.setString(6, correctAnswer);
-                preparedStatement.setString(7, difficulty);
-
-                int rowsAffected = preparedStatement.executeUpdate();
-                if (rowsAffected > 0) {
+            try {
+                Game.Question newQuestion = new Game.Question(question, optionA, optionB, optionC, optionD, correctOption);
+                if (DatabaseConnection.getRepository().addQuestion(newQuestion, difficulty)) {
                     JOptionPane.showMessageDialog(this, "Question Added Successfully!");
                     viewQuestions(); // Refresh question list
                 }
@@ -386,12 +533,8 @@ public class AdminHome extends JFrame {
                 int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete question ID " + questionId + "? This action cannot be undone.", "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    String sql = "DELETE FROM questions WHERE id = ?";
-                    try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                         PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-                        preparedStatement.setInt(1, questionId);
-                        int result = preparedStatement.executeUpdate();
-                        if (result > 0) {
+                    try {
+                        if (DatabaseConnection.getRepository().deleteQuestion(questionId)) {
                             JOptionPane.showMessageDialog(this, "Question Deleted Successfully!");
                             viewQuestions(); // Refresh question list
                         } else {
@@ -449,13 +592,8 @@ public class AdminHome extends JFrame {
 
             try {
                 int questionId = Integer.parseInt(questionIdStr);
-                String updateSql = "UPDATE questions SET difficulty = ? WHERE id = ?";
-                try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                     PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
-                    updateStmt.setString(1, difficulty);
-                    updateStmt.setInt(2, questionId);
-                    int rowsAffected = updateStmt.executeUpdate();
-                    if (rowsAffected > 0) {
+                try {
+                    if (DatabaseConnection.getRepository().updateQuestionDifficulty(questionId, difficulty)) {
                         JOptionPane.showMessageDialog(this, "Question Updated Successfully!");
                         viewQuestions(); // Refresh question list
                     } else {
@@ -472,8 +610,219 @@ public class AdminHome extends JFrame {
     }
 
     /**
-     * Fetches all user scores from the database, displays them in a table,
-     * and calculates and displays the overall average score.
+     * Imports questions in bulk from a CSV or JSON file chosen by the admin.
+     * The import runs in the background behind a progress dialog that can cancel it;
+     * rejected rows are listed when it finishes.
+     */
+    private void importQuestions() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Questions");
+        chooser.setFileFilter(new FileNameExtensionFilter("Question files (CSV, JSON)", "csv", "json"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        JLabel lblStatus = new JLabel("Reading " + file.getFileName() + "...");
+        AtomicBoolean cancelRequested = new AtomicBoolean();
+        JDialog progressDialog = showProgressDialog("Importing Questions", lblStatus, progressBar, cancelRequested,
+                "Cancelling after the current chunk...");
+
+        new SwingWorker<QuestionImporter.Result, QuestionImporter.Progress>() {
+            @Override
+            protected QuestionImporter.Result doInBackground() throws Exception {
+                return new QuestionImporter(DatabaseConnection.getRepository())
+                        .importFile(file, progress -> publish(progress), cancelRequested::get);
+            }
+
+            @Override
+            protected void process(List<QuestionImporter.Progress> updates) {
+                QuestionImporter.Progress latest = updates.get(updates.size() - 1);
+                progressBar.setValue(latest.getPercent());
+                if (!cancelRequested.get()) {
+                    lblStatus.setText(String.format("Rows read: %d   Imported: %d   Rejected: %d",
+                            latest.getRowsRead(), latest.getImported(), latest.getErrors()));
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    showImportResult(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(AdminHome.this, "Import stopped: " + cause.getMessage()
+                                    + "\nQuestions from chunks committed before the error were kept.",
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+                viewQuestions(); // Refresh question list
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows a non-modal progress dialog with a cancel button.
+     *
+     * @param cancelRequested Set when the admin presses Cancel
+     * @param cancellingText Status shown once Cancel is pressed
+     * @return The visible dialog; the caller disposes it when the work ends
+     */
+    private JDialog showProgressDialog(String title, JLabel lblStatus, JProgressBar progressBar,
+                                       AtomicBoolean cancelRequested, String cancellingText) {
+        JDialog progressDialog = new JDialog(this, title, false);
+        progressBar.setStringPainted(true);
+        lblStatus.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        JButton btnCancel = createStyledButton("Cancel", DANGER_RED);
+        btnCancel.addActionListener(e -> {
+            cancelRequested.set(true);
+            btnCancel.setEnabled(false);
+            lblStatus.setText(cancellingText);
+        });
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 10));
+        progressPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        progressPanel.setBackground(SECONDARY_COLOR);
+        progressPanel.add(lblStatus, BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        JPanel cancelWrapper = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        cancelWrapper.setBackground(SECONDARY_COLOR);
+        cancelWrapper.add(btnCancel);
+        progressPanel.add(cancelWrapper, BorderLayout.SOUTH);
+        progressDialog.setContentPane(progressPanel);
+        progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        progressDialog.setSize(460, 190);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+        return progressDialog;
+    }
+
+    /**
+     * Summarizes a finished import, listing rejected rows.
+     */
+    private void showImportResult(QuestionImporter.Result result) {
+        String summary = String.format("%s %d of %d row(s). %d row(s) rejected.",
+                result.isCancelled() ? "Import cancelled after importing" : "Imported",
+                result.getImported(), result.getRowsRead(), result.getErrorCount());
+        if (result.getErrorCount() == 0) {
+            JOptionPane.showMessageDialog(this, summary, "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder details = new StringBuilder();
+        for (QuestionImporter.RowError error : result.getErrors()) {
+            details.append(error).append('\n');
+        }
+        if (result.getErrorCount() > result.getErrors().size()) {
+            details.append("... and ").append(result.getErrorCount() - result.getErrors().size()).append(" more");
+        }
+        JTextArea errorArea = new JTextArea(details.toString(), 15, 60);
+        errorArea.setEditable(false);
+        errorArea.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        errorArea.setCaretPosition(0);
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.add(new JLabel(summary), BorderLayout.NORTH);
+        panel.add(new JScrollPane(errorArea), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, panel, "Import Complete", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * Exports every question to an offline question pack file chosen by the admin.
+     * The export runs in the background; a dialog reports the outcome.
+     */
+    private void exportQuestionPack() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Offline Question Pack");
+        chooser.setSelectedFile(QuestionPack.defaultFile().toFile());
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return QuestionPack.export(DatabaseConnection.getRepository(), file);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(AdminHome.this, "Exported " + get() + " question(s) to " + file,
+                            "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(AdminHome.this, "Error exporting question pack: " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Exports a whole table to a CSV or JSON file chosen by the admin. Rows are streamed
+     * from the database to the file in the background, so the table never has to fit in
+     * memory; a progress dialog can cancel the export, leaving any existing file intact.
+     */
+    private void exportTable(TableExporter.Table table) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export " + table);
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or JSON files", "csv", "json"));
+        chooser.setSelectedFile(new java.io.File(table + ".csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        JLabel lblStatus = new JLabel("Counting " + table + "...");
+        AtomicBoolean cancelRequested = new AtomicBoolean();
+        JDialog progressDialog = showProgressDialog("Exporting " + table, lblStatus, progressBar, cancelRequested,
+                "Cancelling...");
+
+        new SwingWorker<Long, TableExporter.Progress>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return new TableExporter(DatabaseConnection.getRepository())
+                        .export(table, file, progress -> publish(progress), cancelRequested::get);
+            }
+
+            @Override
+            protected void process(List<TableExporter.Progress> updates) {
+                TableExporter.Progress latest = updates.get(updates.size() - 1);
+                progressBar.setValue(latest.getPercent());
+                if (!cancelRequested.get()) {
+                    lblStatus.setText(String.format("Rows written: %d of about %d",
+                            latest.getRowsWritten(), latest.getTotalRows()));
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    long rows = get();
+                    if (rows < 0) {
+                        JOptionPane.showMessageDialog(AdminHome.this, "Export cancelled. " + file + " was not changed.",
+                                "Export Cancelled", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(AdminHome.this, "Exported " + rows + " row(s) to " + file,
+                                "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(AdminHome.this, "Error exporting " + table + ": " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Displays user scores in a table, loading them page by page as the admin scrolls,
+     * and displays aggregates read in the background from the score summary table.
      */
     private void viewReports() {
         // Update scroll pane title and visibility for average score
@@ -487,42 +836,57 @@ public class AdminHome extends JFrame {
         ));
         lblAverageScore.setVisible(true);
 
-        String sql = "SELECT username, score FROM scores ORDER BY score DESC";
-        DefaultTableModel model = new DefaultTableModel(new String[]{"Username", "Score"}, 0);
-        double averageScore = 0.0;
-
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
+        setTableModel(new PagedTableModel(new String[]{"Username", "Score"},
+                DatabaseConnection.getRepository().scorePages(), PAGE_SIZE, MAX_RESIDENT_PAGES));
 
-            int totalScore = 0;
-            int rowCount = 0;
+        lblAverageScore.setText("Overall Average Score: Loading...");
+        new SwingWorker<ScoreSummary, Void>() {
+            @Override
+            protected ScoreSummary doInBackground() throws Exception {
+                return DatabaseConnection.getRepository().fetchScoreSummary();
+            }
 
-            while (resultSet.next()) {
-                String username = resultSet.getString("username");
-                int score = resultSet.getInt("score");
-                model.addRow(new Object[]{username, score});
-                totalScore += score;
-                rowCount++;
+            @Override
+            protected void done() {
+                showScoreSummary(this);
             }
-            table.setModel(model);
+        }.execute();
+    }
 
-            if (rowCount > 0) {
-                averageScore = (double) totalScore / rowCount;
-                lblAverageScore.setText(String.format("Overall Average Score: %.2f", averageScore));
+    /**
+     * Shows the aggregates computed from the score summary table under the report table.
+     * @param worker The finished worker holding the summary or the failure.
+     */
+    private void showScoreSummary(SwingWorker<ScoreSummary, Void> worker) {
+        try {
+            ScoreSummary summary = worker.get();
+            if (summary.getCount() > 0) {
+                StringBuilder breakdown = new StringBuilder();
+                for (Map.Entry<String, ScoreSummary> entry : summary.getByDifficulty().entrySet()) {
+                    String name = entry.getKey().isEmpty() ? "Unrecorded" : entry.getKey();
+                    breakdown.append(String.format("%s: %.2f (%d)&nbsp;&nbsp; ", name,
+                            entry.getValue().getAverage(), entry.getValue().getCount()));
+                }
+                lblAverageScore.setText(String.format("<html><div style='text-align: right;'>"
+                                + "Overall Average Score: %.2f &nbsp;|&nbsp; Scores: %d &nbsp;|&nbsp; Median: %d"
+                                + " &nbsp;|&nbsp; 90th Percentile: %d<br/>"
+                                + "<span style='font-size: 0.8em; font-weight: normal;'>%s</span></div></html>",
+                        summary.getAverage(), summary.getCount(), summary.getPercentile(50),
+                        summary.getPercentile(90), breakdown.toString().trim()));
             } else {
                 lblAverageScore.setText("Overall Average Score: N/A (No scores found)");
             }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error retrieving reports: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            JOptionPane.showMessageDialog(this, "Error retrieving reports: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             lblAverageScore.setText("Overall Average Score: Error");
-            e.printStackTrace();
+            cause.printStackTrace();
         }
     }
 
     /**
-     * Fetches all quiz questions from the database and displays them in a table.
+     * Displays quiz questions in a table, loading them page by page as the admin scrolls.
      * Hides the average score label as it's not relevant here.
      */
     private void viewQuestions() {
@@ -537,39 +901,27 @@ public class AdminHome extends JFrame {
         ));
         lblAverageScore.setVisible(false);
 
-        DefaultTableModel model = new DefaultTableModel(new String[]{"ID", "Question", "Option A", "Option B", "Option C", "Option D", "Correct Answer", "Difficulty"}, 0);
-
-        String sql = "SELECT id, question, optionA, optionB, optionC, optionD, correctAnswer, difficulty FROM questions ORDER BY id ASC";
-
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
-
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String questionText = resultSet.getString("question");
-                String optionA = resultSet.getString("optionA");
-                String optionB = resultSet.getString("optionB");
-                String optionC = resultSet.getString("optionC");
-                String optionD = resultSet.getString("optionD");
-                String correctAnswer = resultSet.getString("correctAnswer");
-                String difficulty = resultSet.getString("difficulty");
-                model.addRow(new Object[]{id, questionText, optionA, optionB, optionC, optionD, correctAnswer, difficulty});
-            }
-            table.setModel(model);
-
-            // Adjust column widths for better readability of questions
-            table.getColumnModel().getColumn(0).setPreferredWidth(30); // ID
-            table.getColumnModel().getColumn(1).setPreferredWidth(300); // Question
-            table.getColumnModel().getColumn(6).setPreferredWidth(120); // Correct Answer
-            table.getColumnModel().getColumn(7).setPreferredWidth(90); // Difficulty
-            table.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS); // Allow other columns to adjust
+        setTableModel(new PagedTableModel(
+                new String[]{"ID", "Question", "Option A", "Option B", "Option C", "Option D", "Correct Answer", "Difficulty"},
+                DatabaseConnection.getRepository().questionPages(), PAGE_SIZE, MAX_RESIDENT_PAGES));
 
+        // Adjust column widths for better readability of questions
+        table.getColumnModel().getColumn(0).setPreferredWidth(30); // ID
+        table.getColumnModel().getColumn(1).setPreferredWidth(300); // Question
+        table.getColumnModel().getColumn(6).setPreferredWidth(120); // Correct Answer
+        table.getColumnModel().getColumn(7).setPreferredWidth(90); // Difficulty
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS); // Allow other columns to adjust
+    }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error retrieving questions: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+    /**
+     * Installs a new paged model on the table, stopping the loader of the one it replaces.
+     * @param model The model to display.
+     */
+    private void setTableModel(PagedTableModel model) {
+        if (table.getModel() instanceof PagedTableModel) {
+            ((PagedTableModel) table.getModel()).dispose();
         }
+        table.setModel(model);
     }
 
     /**
@@ -584,7 +936,8 @@ public class AdminHome extends JFrame {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); // Use system look and feel
 
-                AdminHome frame = new AdminHome("admin"); // Create frame with a dummy admin username
+                AdminHome frame = new AdminHome(DatabaseConnection.getSessionStore()
+                        .create("admin", null, UserSession.ROLE_ADMIN)); // Create frame with a dummy admin session
                 frame.setVisible(true);
             } catch (Exception e) {
                 e.printStackTrace();
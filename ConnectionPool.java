@@ -0,0 +1,427 @@
+package org.example;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded JDBC connection pool used by {@link DatabaseConnection}.
+ * Connections handed out are proxies whose {@code close()} returns the
+ * physical connection to the pool instead of closing it, so existing
+ * try-with-resources call sites keep working unchanged. Statements prepared
+ * through {@code prepareStatement(String)} are cached per physical connection
+ * and reused on later borrows.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool, opens {@code minSize} connections eagerly and starts
+     * the background idle-eviction and leak-detection task.
+     *
+     * @param url JDBC URL
+     * @param user Database user
+     * @param password Database password
+     * @param minSize Connections kept open even when idle
+     * @param maxSize Upper bound on open connections
+     * @param borrowTimeoutMillis How long a caller waits for a free connection
+     * @param idleTimeoutMillis Idle time after which surplus connections are closed
+     * @param leakThresholdMillis Hold time after which a borrow is reported as a leak
+     */
+    ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                   long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "quiz-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < minSize; i++) {
+            try {
+                idle.offerLast(new PooledEntry(openPhysical()));
+            } catch (SQLException e) {
+                // Database may not be up yet; connections will be opened lazily on borrow
+                System.err.println("Connection pool warm-up failed: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to become free.
+     * Idle connections are validated with {@link Connection#isValid(int)} before being handed out.
+     *
+     * @return Logical connection; closing it returns it to the pool
+     * @throws SQLException if the pool is exhausted, closed or a new connection cannot be opened
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection physical = null;
+            PooledEntry entry;
+            while (physical == null && (entry = idle.pollFirst()) != null) {
+                if (isUsable(entry.connection)) {
+                    physical = entry.connection;
+                } else {
+                    closeQuietly(entry.connection);
+                }
+            }
+            if (physical == null) {
+                physical = openPhysical();
+            }
+            Connection logical = wrap(physical);
+            leased.put(logical, new Lease(physical));
+            return logical;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows.
+     * Connections still on loan are closed when they are returned.
+     */
+    void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    /** @return number of physical connections currently open */
+    int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /** @return number of connections currently on loan */
+    int getActiveConnections() {
+        return leased.size();
+    }
+
+    /** @return number of connections sitting idle in the pool */
+    int getIdleConnections() {
+        return idle.size();
+    }
+
+    private void release(Connection logical) {
+        Lease lease = leased.remove(logical);
+        if (lease == null) {
+            return; // already returned
+        }
+        Connection physical = lease.connection;
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+            } else {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                idle.offerFirst(new PooledEntry(physical));
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction: close surplus connections that have not been used recently
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (now - entry.idleSince > idleTimeoutMillis && idle.remove(entry)) {
+                closeQuietly(entry.connection);
+            }
+        }
+
+        // Leak detection: report connections held longer than the threshold once
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.reported = true;
+                System.err.println("Possible connection leak: connection held for "
+                        + (now - lease.borrowedAt) + " ms by thread " + lease.threadName);
+                lease.origin.printStackTrace();
+            }
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(true);
+        totalConnections.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.closeAll();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Nothing useful to do with a failing close
+        } finally {
+            totalConnections.decrementAndGet();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        StatementCache cache = statementCaches.computeIfAbsent(physical, c -> new StatementCache());
+        InvocationHandler handler = new InvocationHandler() {
+            private volatile boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            cache.releaseAll();
+                            release((Connection) proxy);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + physical + "]";
+                    case "prepareStatement":
+                        if (!returned && args.length == 1) {
+                            return cache.prepare(physical, (String) args[0]);
+                        }
+                        return delegate(method, args); // Other overloads are not cached
+                    default:
+                        return delegate(method, args);
+                }
+            }
+
+            private Object delegate(Method method, Object[] args) throws Throwable {
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * LRU cache of prepared statements for one physical connection.
+     * A cached statement is handed to one caller at a time; its {@code close()}
+     * only clears parameters so the next borrower can reuse it.
+     */
+    private static class StatementCache {
+        private final Map<String, CachedStatement> statements =
+                new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                        if (size() > STATEMENT_CACHE_SIZE && !eldest.getValue().inUse) {
+                            eldest.getValue().closePhysical();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        synchronized PreparedStatement prepare(Connection physical, String sql) throws SQLException {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.inUse) {
+                // Same SQL already open on this connection (nested use); don't share it
+                return physical.prepareStatement(sql);
+            }
+            if (cached == null || cached.statement.isClosed()) {
+                cached = new CachedStatement(physical.prepareStatement(sql));
+                statements.put(sql, cached);
+            }
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        synchronized void releaseAll() {
+            for (CachedStatement cached : statements.values()) {
+                cached.release();
+            }
+        }
+
+        synchronized void closeAll() {
+            for (CachedStatement cached : statements.values()) {
+                cached.closePhysical();
+            }
+            statements.clear();
+        }
+    }
+
+    /**
+     * A physical prepared statement plus the proxy handed out to callers.
+     */
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private volatile boolean inUse;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                release();
+                                return null;
+                            case "isClosed":
+                                return !inUse || statement.isClosed();
+                            case "equals":
+                                return p == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(p);
+                            default:
+                                if (!inUse) {
+                                    throw new SQLException("Statement has already been closed");
+                                }
+                                try {
+                                    return method.invoke(statement, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+
+        void release() {
+            if (inUse) {
+                inUse = false;
+                try {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                } catch (SQLException ignored) {
+                    // Statement will be re-prepared if it turns out to be broken
+                }
+            }
+        }
+
+        void closePhysical() {
+            inUse = false;
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Closing a broken statement is best-effort
+            }
+        }
+    }
+
+    /**
+     * An idle physical connection and the time it was returned.
+     */
+    private static class PooledEntry {
+        private final Connection connection;
+        private final long idleSince = System.currentTimeMillis();
+
+        PooledEntry(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Bookkeeping for a borrowed connection, used for leak detection.
+     */
+    private static class Lease {
+        private final Connection connection;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final String threadName = Thread.currentThread().getName();
+        private final Throwable origin = new Throwable("Connection borrowed here");
+        private volatile boolean reported;
+
+        Lease(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -1,51 +1,135 @@
 package org.example;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Manages database connections for the Quiz Application using MySQL.
- * Implements singleton pattern to ensure single connection instance.
+ * Connections are served from a bounded {@link ConnectionPool}; closing a
+ * connection returns it to the pool rather than tearing down the socket.
  *
  * @author Tenzing Kunsang Sherpa
- * @version 2.0
+ * @version 3.0
  * @since 2024
  */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/quiz_app_db";
-    private static final String USER = "quiz_user";
-    private static final String PASSWORD = "secure_quiz_pw";
-    private static Connection connection;
+    // Connection settings, overridable with -Dquiz.db.url/user/password (e.g. to point load tests at a scratch database)
+    private static final String URL = System.getProperty("quiz.db.url", "jdbc:mysql://localhost:3306/quiz_app_db?rewriteBatchedStatements=true");
+    private static final String USER = System.getProperty("quiz.db.user", "quiz_user");
+    private static final String PASSWORD = System.getProperty("quiz.db.password", "secure_quiz_pw");
+
+    // Existing account to promote to admin at startup (-Dquiz.admin.username); there is no default admin
+    private static final String ADMIN_USERNAME = System.getProperty("quiz.admin.username");
+
+    // Pool sizing, overridable with -Dquiz.db.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("quiz.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("quiz.db.pool.maxSize", 10);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("quiz.db.pool.borrowTimeoutMs", 5_000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("quiz.db.pool.idleTimeoutMs", 300_000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("quiz.db.pool.leakThresholdMs", 60_000L);
+
+    private static volatile ConnectionPool pool;
+    private static final QuizRepository repository = new QuizRepository();
+    private static final Leaderboard leaderboard = new Leaderboard(repository);
+    private static volatile ScoreSubmissionQueue scoreQueue;
+    private static final SessionStore sessionStore = new SessionStore();
 
     private DatabaseConnection() {} // Private constructor for singleton
 
     /**
-     * Gets the database connection instance.
-     * Creates new connection if none exists or existing is closed.
+     * Borrows a connection from the shared pool, creating the pool on first use.
+     * Callers must close the returned connection (try-with-resources) to hand it back.
      *
-     * @return Established database Connection
-     * @throws SQLException if database access error occurs
+     * @return Pooled database Connection
+     * @throws SQLException if database access error occurs or the pool is exhausted
      * @throws ClassNotFoundException if JDBC driver not found
      */
-    public static synchronized Connection getConnection()
+    public static Connection getConnection()
             throws SQLException, ClassNotFoundException {
-        if (connection == null || connection.isClosed()) {
+        ConnectionPool current = pool;
+        if (current == null) {
+            current = initPool();
+        }
+        return current.borrow();
+    }
+
+    /**
+     * Gets the shared data-access layer for questions and scores.
+     *
+     * @return QuizRepository backed by this connection pool
+     */
+    public static QuizRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Gets the shared in-memory leaderboards.
+     *
+     * @return Leaderboard kept current by the score queue
+     */
+    public static Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Gets the shared store of logged-in sessions.
+     *
+     * @return SessionStore issuing and expiring session tokens
+     */
+    public static SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Gets the shared write-behind queue for finished quiz scores, starting it on first use.
+     *
+     * @return ScoreSubmissionQueue writing through the shared repository
+     */
+    public static ScoreSubmissionQueue getScoreQueue() {
+        ScoreSubmissionQueue current = scoreQueue;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = scoreQueue;
+                if (current == null) {
+                    current = new ScoreSubmissionQueue(repository, leaderboard, ScoreSubmissionQueue.defaultJournalFile());
+                    scoreQueue = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // The pool is only published once the schema is current, so no query runs
+    // against a half-migrated database; a failed start is retried on the next call
+    private static synchronized ConnectionPool initPool() throws SQLException, ClassNotFoundException {
+        if (pool == null) {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            connection.setAutoCommit(true);
+            ConnectionPool created = new ConnectionPool(URL, USER, PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                    BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, LEAK_THRESHOLD_MS);
+            try (Connection conn = created.borrow()) {
+                SchemaMigrator.migrate(conn);
+                if (ADMIN_USERNAME != null && !ADMIN_USERNAME.isBlank()) {
+                    SchemaMigrator.promoteAdmin(conn, ADMIN_USERNAME.trim());
+                }
+            } catch (SQLException e) {
+                created.shutdown();
+                throw new SQLException("Could not bring the database schema up to date: " + e.getMessage(), e);
+            }
+            pool = created;
         }
-        return connection;
+        return pool;
     }
 
     /**
-     * Closes the database connection if open.
+     * Shuts down the connection pool, closing all idle connections.
+     * A later call to {@link #getConnection()} creates a fresh pool.
      *
      * @throws SQLException if closing connection fails
      */
     public static synchronized void closeConnection() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
     }
 
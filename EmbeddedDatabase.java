@@ -0,0 +1,181 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throwaway in-memory H2 database in MySQL mode, with the schema
+ * {@link SchemaMigrator} leaves behind and a {@link QuizRepository} wired to
+ * it through a {@link ConnectionPool}. {@link LoadGenerator} uses it as its
+ * default target and the JMH query benchmarks use it for their data, so both
+ * exercise the application's real SQL without a MySQL server.
+ * <p>
+ * The schema is restated in H2 syntax because the migrator relies on
+ * MySQL-only functions. H2 plans queries differently from MySQL, so timings
+ * taken here compare code paths with each other, not with production.
+ * The database is dropped by {@link #close()}.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class EmbeddedDatabase {
+    private static final String[] SCHEMA = {
+            "CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, country VARCHAR(100) NULL, "
+                    + "role VARCHAR(20) NOT NULL DEFAULT 'player', CONSTRAINT uq_users_username UNIQUE (username))",
+            "CREATE TABLE questions (id INT AUTO_INCREMENT PRIMARY KEY, question VARCHAR(1000) NOT NULL, "
+                    + "optionA VARCHAR(255) NOT NULL, optionB VARCHAR(255) NOT NULL, optionC VARCHAR(255) NOT NULL, "
+                    + "optionD VARCHAR(255) NOT NULL, correctAnswer VARCHAR(255) NOT NULL, correct_option TINYINT NULL, "
+                    + "difficulty VARCHAR(20) NOT NULL)",
+            // The migrations add no index on scores.username
+            "CREATE TABLE scores (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL, "
+                    + "score INT NOT NULL, submission_time DATETIME NULL, average_score DOUBLE NULL, "
+                    + "difficulty VARCHAR(20) NULL)",
+            "CREATE INDEX idx_scores_score ON scores (score)",
+            "CREATE INDEX idx_scores_difficulty_score ON scores (difficulty, score)",
+            "CREATE INDEX idx_scores_submission_time ON scores (submission_time)",
+            "CREATE TABLE user_stats (username VARCHAR(255) NOT NULL PRIMARY KEY, "
+                    + "games_played INT NOT NULL DEFAULT 0, total_score BIGINT NOT NULL DEFAULT 0, "
+                    + "best_score INT NOT NULL DEFAULT 0, last_played DATETIME NULL)",
+            "CREATE TABLE score_histogram (difficulty VARCHAR(20) NOT NULL DEFAULT '', score INT NOT NULL, "
+                    + "games BIGINT NOT NULL DEFAULT 0, PRIMARY KEY (difficulty, score))"
+    };
+    private static final int SEED_CHUNK = 1000;
+
+    private final ConnectionPool pool;
+    private final QuizRepository repository;
+
+    /**
+     * Creates an empty database with the application schema.
+     *
+     * @param maxConnections Pool size, as {@code quiz.db.pool.maxSize} sizes the real pool
+     * @throws SQLException if the H2 driver is missing or the schema cannot be created
+     */
+    EmbeddedDatabase(int maxConnections) throws SQLException {
+        try {
+            // Registered by name: fat jars may keep only one driver's service file
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("H2 JDBC driver not found", e);
+        }
+        // A private in-memory database; it is dropped when the pool closes its last connection
+        String url = "jdbc:h2:mem:quiz_embedded_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        ConnectionPool connections = new ConnectionPool(url, "sa", "", 1, maxConnections, 5_000L, 300_000L, 60_000L);
+        pool = connections;
+        repository = new QuizRepository() {
+            @Override
+            Connection connect() throws SQLException {
+                return connections.borrow();
+            }
+        };
+        try (Connection connection = pool.borrow();
+             Statement stmt = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                stmt.execute(ddl);
+            }
+        } catch (SQLException e) {
+            pool.shutdown();
+            throw e;
+        }
+    }
+
+    /** @return a repository reading and writing this database */
+    QuizRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Borrows a pooled connection; close it to hand it back.
+     */
+    Connection getConnection() throws SQLException {
+        return pool.borrow();
+    }
+
+    /**
+     * Fills the tables with generated rows. Questions and scores cycle through
+     * {@link QuestionImporter#DIFFICULTIES}; scores belong to {@code player0}
+     * .. {@code player<users-1>} and are spread over the last 30 days, and
+     * {@code user_stats} and {@code score_histogram} are built from them.
+     *
+     * @param questions Questions to insert
+     * @param users Users to insert; seeded users cannot log in
+     * @param scores Scores to insert; needs at least one user
+     * @param random Source of scores and submission times
+     * @throws SQLException if an insert fails
+     */
+    void seed(int questions, int users, int scores, Random random) throws SQLException {
+        String[] difficulties = QuestionImporter.DIFFICULTIES;
+        long now = System.currentTimeMillis();
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT INTO users (username, password, country) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < users; i++) {
+                    stmt.setString(1, "player" + i);
+                    stmt.setString(2, "not-a-real-hash");
+                    stmt.setString(3, "Nepal");
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+            String[] options = {"Alpha", "Bravo", "Charlie", "Delta"};
+            try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO questions "
+                    + "(question, optionA, optionB, optionC, optionD, correctAnswer, correct_option, difficulty) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < questions; i++) {
+                    stmt.setString(1, "Question " + i + "?");
+                    for (int option = 0; option < options.length; option++) {
+                        stmt.setString(2 + option, options[option]);
+                    }
+                    stmt.setString(6, options[i & 3]);
+                    stmt.setInt(7, i & 3);
+                    stmt.setString(8, difficulties[i % difficulties.length]);
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO scores "
+                    + "(username, score, submission_time, average_score, difficulty) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < scores; i++) {
+                    int score = random.nextInt(QuestionLoader.QUESTIONS_PER_QUIZ + 1);
+                    stmt.setString(1, "player" + (i % users));
+                    stmt.setInt(2, score);
+                    stmt.setTimestamp(3, new Timestamp(now - (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(30))));
+                    stmt.setDouble(4, score);
+                    stmt.setString(5, difficulties[i % difficulties.length]);
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("INSERT INTO user_stats (username, games_played, total_score, best_score, last_played) "
+                        + "SELECT username, COUNT(*), SUM(score), MAX(score), MAX(submission_time) FROM scores GROUP BY username");
+                stmt.execute("INSERT INTO score_histogram (difficulty, score, games) "
+                        + "SELECT COALESCE(difficulty, ''), score, COUNT(*) FROM scores GROUP BY COALESCE(difficulty, ''), score");
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Closes the pool, which drops the database.
+     */
+    void close() {
+        pool.shutdown();
+    }
+
+    // Send the batch every SEED_CHUNK rows so large seeds do not build one huge batch
+    private static void addBatch(PreparedStatement stmt, int row) throws SQLException {
+        stmt.addBatch();
+        if ((row + 1) % SEED_CHUNK == 0) {
+            stmt.executeBatch();
+        }
+    }
+}
@@ -3,27 +3,32 @@ package org.example;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Game extends JFrame {
 
     /**
      * The main quiz gameplay interface where users answer questions.
-     */    private String username;
+     */    private final UserSession userSession;
+    private String username;
     private String difficulty;
-    private List<Question> questions;
-    private int currentQuestionIndex = 0;
-    private int score = 0;
-    private int totalQuestions = 0;
+    private final QuizSession session;
+    private final boolean speedMode;
 
     // UI Components
     private JLabel lblQuestion, lblScore;
     private JRadioButton rbOptionA, rbOptionB, rbOptionC, rbOptionD;
+    private JRadioButton[] optionButtons;
     private ButtonGroup buttonGroup;
     private JButton btnNext;
+    private JLabel lblTimer, lblFeedback;
+    private Timer countdownTimer;
+    private boolean acceptingAnswers; // Speed mode: the current question can still be answered
+
+    // Speed mode settings
+    private static final long SPEED_QUESTION_MS = Long.getLong("quiz.speed.questionMs", 10_000L);
+    private static final int FEEDBACK_MS = 900;
+    private static final int COUNTDOWN_TICK_MS = 100;
 
     private static final Color BACKGROUND_PRIMARY = new Color(228, 242, 250); // Soft light blue for main background
     private static final Color CARD_BACKGROUND = new Color(255, 255, 255);   // Pure white for question/option cards
@@ -35,28 +40,39 @@ public class Game extends JFrame {
     private static final Color ERROR_FEEDBACK = new Color(231, 76, 60);
     private static final Color BORDER_SUBTLE = new Color(200, 200, 200);
 
-    // Database connection details
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/quiz_app_db";
-    private static final String DB_USER = "quiz_user";
-    private static final String DB_PASSWORD = "secure_quiz_pw";
-
     /**
      * Constructs the Game frame for the specified user and difficulty.
-     * @param username The player's username
+     * @param userSession The logged-in player's session
+     * @param difficulty The selected difficulty level
+     */
+    public Game(UserSession userSession, String difficulty) {
+        this(userSession, difficulty, false);
+    }
+
+    /**
+     * Constructs the Game frame, optionally in speed mode. In speed mode keys 1-4 or
+     * A-D (or a click on an option) answer at once, each question has a countdown,
+     * faster correct answers score more points, and feedback is shown in a timed
+     * overlay instead of a dialog.
+     * @param userSession The logged-in player's session
      * @param difficulty The selected difficulty level
+     * @param speedMode true for a timed, keyboard-driven round
      */
-    public Game(String username, String difficulty) {
-        this.username = username;
+    public Game(UserSession userSession, String difficulty, boolean speedMode) {
+        this.userSession = userSession;
+        this.username = userSession.getUsername();
         this.difficulty = difficulty;
+        this.speedMode = speedMode;
+        this.session = new QuizSession(username, difficulty, DatabaseConnection.getScoreQueue(),
+                speedMode ? SPEED_QUESTION_MS : 0);
 
-        setTitle("Quiz Game - " + difficulty);
+        setTitle("Quiz Game - " + difficulty + (speedMode ? " (Speed Mode)" : ""));
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1000, 750);
         setLocationRelativeTo(null);
 
         initComponents();
         fetchQuestions();
-        displayQuestion();
     }
 
     /**
@@ -88,6 +104,12 @@ public class Game extends JFrame {
         lblScore.setForeground(SCORE_COLOR);
         topRowPanel.add(lblScore, BorderLayout.EAST);
 
+        lblTimer = new JLabel("", SwingConstants.CENTER);
+        lblTimer.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        lblTimer.setForeground(TEXT_DARK);
+        lblTimer.setVisible(speedMode);
+        topRowPanel.add(lblTimer, BorderLayout.CENTER);
+
         headerPanel.add(topRowPanel);
         headerPanel.add(Box.createVerticalStrut(25));
 
@@ -134,6 +156,8 @@ public class Game extends JFrame {
         buttonGroup.add(rbOptionC);
         buttonGroup.add(rbOptionD);
 
+        optionButtons = new JRadioButton[] {rbOptionA, rbOptionB, rbOptionC, rbOptionD};
+
         optionsPanel.add(rbOptionA);
         optionsPanel.add(rbOptionB);
         optionsPanel.add(rbOptionC);
@@ -167,6 +191,63 @@ public class Game extends JFrame {
         buttonPanel.add(btnNext);
 
         contentPane.add(buttonPanel, BorderLayout.SOUTH);
+
+        if (speedMode) {
+            btnNext.setVisible(false);
+            JLabel lblHint = new JLabel("Press 1-4 or A-D to answer");
+            lblHint.setFont(new Font("Segoe UI", Font.PLAIN, 18));
+            lblHint.setForeground(TEXT_DARK);
+            buttonPanel.add(lblHint);
+            for (int i = 0; i < optionButtons.length; i++) {
+                int option = i;
+                optionButtons[i].addActionListener(e -> submitSpeedAnswer(option));
+            }
+            countdownTimer = new Timer(COUNTDOWN_TICK_MS, e -> onCountdownTick());
+        }
+        installAnswerKeys();
+        installFeedbackOverlay();
+    }
+
+    /**
+     * Binds 1-4 (main row and keypad) and A-D to the four options. In speed mode a key
+     * answers at once; otherwise it selects the option, as a click would.
+     */
+    private void installAnswerKeys() {
+        InputMap inputMap = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = getRootPane().getActionMap();
+        for (int i = 0; i < optionButtons.length; i++) {
+            int option = i;
+            String actionKey = "answer" + i;
+            inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_1 + i, 0), actionKey);
+            inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD1 + i, 0), actionKey);
+            inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_A + i, 0), actionKey);
+            actionMap.put(actionKey, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if (speedMode) {
+                        submitSpeedAnswer(option);
+                    } else if (optionButtons[option].isEnabled()) {
+                        optionButtons[option].setSelected(true);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Sets up the glass pane banner used for speed mode feedback. The glass pane has
+     * no mouse listeners, so it never blocks input while the banner shows.
+     */
+    private void installFeedbackOverlay() {
+        JPanel overlay = new JPanel(new GridBagLayout());
+        overlay.setOpaque(false);
+        lblFeedback = new JLabel("", SwingConstants.CENTER);
+        lblFeedback.setFont(new Font("Segoe UI", Font.BOLD, 32));
+        lblFeedback.setForeground(Color.WHITE);
+        lblFeedback.setOpaque(true);
+        lblFeedback.setBorder(BorderFactory.createEmptyBorder(20, 40, 20, 40));
+        overlay.add(lblFeedback);
+        setGlassPane(overlay);
     }
 
     /**
@@ -204,58 +285,35 @@ public class Game extends JFrame {
     }
 
     /**
-     * Fetches questions from the database based on the selected difficulty.
-     * Limits to 10 random questions and shuffles them. Provides a fallback to dummy questions.
+     * Fetches questions for the selected difficulty on a background thread,
+     * using questions prefetched by the Home page when available.
+     * The options stay disabled until {@link #onQuestionsLoaded} runs on the EDT.
      */
     private void fetchQuestions() {
-        questions = new ArrayList<>();
-        String sql = "SELECT question, optionA, optionB, optionC, optionD, correctAnswer FROM questions WHERE difficulty = ? ORDER BY RAND() LIMIT 10";
-
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-
-            preparedStatement.setString(1, difficulty);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                while (resultSet.next()) {
-                    String questionText = resultSet.getString("question");
-                    String optionA = resultSet.getString("optionA");
-                    String optionB = resultSet.getString("optionB");
-                    String optionC = resultSet.getString("optionC");
-                    String optionD = resultSet.getString("optionD");
-                    String correctAnswer = resultSet.getString("correctAnswer");
-                    questions.add(new Question(questionText, optionA, optionB, optionC, optionD, correctAnswer));
-                }
-            }
-            Collections.shuffle(questions);
-            this.totalQuestions = questions.size();
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error fetching questions from database: " + e.getMessage() + "\nLoading dummy questions instead.", "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-            addDummyQuestions();
-        }
+        setRadioButtonsEnabled(false);
+        btnNext.setEnabled(false);
 
-        if (questions.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No questions found for difficulty: " + difficulty + ". Adding dummy questions.", "Info", JOptionPane.INFORMATION_MESSAGE);
-            addDummyQuestions();
-        }
-        if (this.totalQuestions == 0) {
-            this.totalQuestions = questions.size();
-        }
-        lblScore.setText(String.format("Score: %d / %d", score, totalQuestions));
+        QuestionLoader.take(difficulty).whenComplete((loaded, error) ->
+                SwingUtilities.invokeLater(() -> onQuestionsLoaded(loaded, error)));
     }
 
     /**
-     * Adds a few predefined dummy questions to the list.
-     * This is used as a fallback if database fetching fails or returns no questions.
+     * Starts the session with the loaded questions and shows the first one.
+     * Falls back to the session's built-in questions if loading failed or found none.
+     * @param loaded The questions fetched from the database, or null on failure
+     * @param error The failure cause, or null on success
      */
-    private void addDummyQuestions() {
-        questions.add(new Question("What is 2 + 2?", "3", "4", "5", "6", "4"));
-        questions.add(new Question("What is the capital of France?", "Berlin", "Madrid", "Paris", "Rome", "Paris"));
-        questions.add(new Question("Which planet is known as the Red Planet?", "Earth", "Mars", "Jupiter", "Venus", "Mars"));
-        questions.add(new Question("What is the largest ocean on Earth?", "Atlantic", "Indian", "Arctic", "Pacific", "Pacific"));
-        questions.add(new Question("How many continents are there?", "5", "6", "7", "8", "7"));
-        Collections.shuffle(questions);
+    private void onQuestionsLoaded(List<Question> loaded, Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            JOptionPane.showMessageDialog(this, "Error fetching questions from database: " + cause.getMessage() + "\nLoading dummy questions instead.", "Database Error", JOptionPane.ERROR_MESSAGE);
+            cause.printStackTrace();
+            session.start(null);
+        } else if (!session.start(loaded)) {
+            JOptionPane.showMessageDialog(this, "No questions found for difficulty: " + difficulty + ". Adding dummy questions.", "Info", JOptionPane.INFORMATION_MESSAGE);
+        }
+        updateScoreLabel();
+        displayQuestion();
     }
 
     /**
@@ -263,37 +321,111 @@ public class Game extends JFrame {
      * If all questions are answered, it calls the `endGame()` method.
      */
     private void displayQuestion() {
-        if (currentQuestionIndex < questions.size()) {
+        Question currentQuestion = session.getCurrentQuestion();
+        if (currentQuestion != null) {
             resetRadioButtonStyles();
             buttonGroup.clearSelection();
 
-            Question currentQuestion = questions.get(currentQuestionIndex);
-            lblQuestion.setText("Q" + (currentQuestionIndex + 1) + ": " + currentQuestion.getQuestion());
-            rbOptionA.setText("A) " + currentQuestion.getOptionA());
-            rbOptionB.setText("B) " + currentQuestion.getOptionB());
-            rbOptionC.setText("C) " + currentQuestion.getOptionC());
-            rbOptionD.setText("D) " + currentQuestion.getOptionD());
+            lblQuestion.setText("Q" + (session.getCurrentIndex() + 1) + ": " + currentQuestion.getQuestion());
+            for (int i = 0; i < optionButtons.length; i++) {
+                optionButtons[i].setText((char) ('A' + i) + ") " + currentQuestion.getOption(i));
+            }
 
             btnNext.setText("Next Question");
             btnNext.setEnabled(true);
             setRadioButtonsEnabled(true);
+            if (speedMode) {
+                // The countdown starts once the question is on screen, not when the last one was answered
+                acceptingAnswers = true;
+                session.beginQuestion();
+                updateTimerLabel();
+                countdownTimer.restart();
+            }
         } else {
             endGame();
         }
     }
 
     /**
-     * Checks the player's selected answer, updates the score, provides visual feedback,
+     * Speed mode: grades an answer as soon as a key or option is pressed.
+     * @param option The chosen option, 0 for A through 3 for D.
+     */
+    private void submitSpeedAnswer(int option) {
+        if (!acceptingAnswers) {
+            return; // Between questions, or the time is already up
+        }
+        acceptingAnswers = false;
+        countdownTimer.stop();
+        showSpeedFeedback(session.answer(option), option);
+    }
+
+    /**
+     * Speed mode: refreshes the countdown and times the question out when it reaches zero.
+     */
+    private void onCountdownTick() {
+        updateTimerLabel();
+        if (acceptingAnswers && session.getRemainingNanos() == 0) {
+            acceptingAnswers = false;
+            countdownTimer.stop();
+            showSpeedFeedback(session.timeOut(), -1);
+        }
+    }
+
+    private void updateTimerLabel() {
+        long remainingMs = session.getRemainingNanos() / 1_000_000;
+        lblTimer.setText(String.format("Time: %.1f s", remainingMs / 1000.0));
+        lblTimer.setForeground(remainingMs <= 3000 ? ERROR_FEEDBACK : TEXT_DARK);
+    }
+
+    /**
+     * Speed mode: marks the options, shows the outcome in the overlay, and moves on
+     * to the next question after a short pause without waiting for the player.
+     * @param answer The graded answer.
+     * @param selected The chosen option, or -1 if time ran out.
+     */
+    private void showSpeedFeedback(QuizSession.Answer answer, int selected) {
+        setRadioButtonsEnabled(false);
+        if (selected >= 0) {
+            optionButtons[selected].setBackground(answer.isCorrect() ? SUCCESS_FEEDBACK : ERROR_FEEDBACK);
+            optionButtons[selected].setForeground(Color.WHITE);
+        }
+        if (!answer.isCorrect() && answer.getCorrectOption() >= 0) {
+            highlightCorrectOption(optionButtons[answer.getCorrectOption()]);
+        }
+        updateScoreLabel();
+
+        String message;
+        if (answer.isCorrect()) {
+            message = String.format("Correct! +%d (%.2f s)", answer.getPoints(), answer.getElapsedNanos() / 1e9);
+        } else {
+            String correctLabel = answer.getCorrectOption() >= 0 ? String.valueOf((char) ('A' + answer.getCorrectOption())) : "?";
+            message = (selected < 0 ? "Time's up! " : answer.isLate() ? "Too late! " : "Wrong! ") + "Answer: " + correctLabel;
+        }
+        lblFeedback.setText(message);
+        lblFeedback.setBackground(answer.isCorrect() ? SUCCESS_FEEDBACK : ERROR_FEEDBACK);
+        getGlassPane().setVisible(true);
+
+        Timer advance = new Timer(FEEDBACK_MS, e -> {
+            getGlassPane().setVisible(false);
+            displayQuestion();
+        });
+        advance.setRepeats(false);
+        advance.start();
+    }
+
+    /**
+     * Passes the player's selected option to the session, shows visual feedback,
      * and then proceeds to the next question or ends the game.
      */
     private void checkAnswerAndNextQuestion() {
-        JRadioButton selectedRadioButton = null;
-        if (rbOptionA.isSelected()) selectedRadioButton = rbOptionA;
-        else if (rbOptionB.isSelected()) selectedRadioButton = rbOptionB;
-        else if (rbOptionC.isSelected()) selectedRadioButton = rbOptionC;
-        else if (rbOptionD.isSelected()) selectedRadioButton = rbOptionD;
+        int selected = -1;
+        for (int i = 0; i < optionButtons.length; i++) {
+            if (optionButtons[i].isSelected()) {
+                selected = i;
+            }
+        }
 
-        if (selectedRadioButton == null) {
+        if (selected < 0) {
             JOptionPane.showMessageDialog(this, "Please select an answer to proceed!", "No Answer Selected", JOptionPane.WARNING_MESSAGE);
             return;
         }
@@ -301,32 +433,40 @@ public class Game extends JFrame {
         setRadioButtonsEnabled(false);
         btnNext.setEnabled(false);
 
-        String selectedAnswerText = selectedRadioButton.getText().substring(3);
-        Question currentQuestion = questions.get(currentQuestionIndex);
-        String correctAnswer = currentQuestion.getCorrectAnswer();
+        QuizSession.Answer answer = session.answer(selected);
+        JRadioButton selectedRadioButton = optionButtons[selected];
 
-        if (selectedAnswerText.equals(correctAnswer)) {
+        if (answer.isCorrect()) {
             selectedRadioButton.setBackground(SUCCESS_FEEDBACK);
             selectedRadioButton.setForeground(Color.WHITE);
-            score++;
-            lblScore.setText(String.format("Score: %d / %d", score, totalQuestions));
+            updateScoreLabel();
             JOptionPane.showMessageDialog(this, "Correct Answer!", "Result", JOptionPane.INFORMATION_MESSAGE);
         } else {
             selectedRadioButton.setBackground(ERROR_FEEDBACK);
             selectedRadioButton.setForeground(Color.WHITE);
-            if (rbOptionA.getText().substring(3).equals(correctAnswer)) highlightCorrectOption(rbOptionA);
-            else if (rbOptionB.getText().substring(3).equals(correctAnswer)) highlightCorrectOption(rbOptionB);
-            else if (rbOptionC.getText().substring(3).equals(correctAnswer)) highlightCorrectOption(rbOptionC);
-            else if (rbOptionD.getText().substring(3).equals(correctAnswer)) highlightCorrectOption(rbOptionD);
+            if (answer.getCorrectOption() >= 0) {
+                highlightCorrectOption(optionButtons[answer.getCorrectOption()]);
+            }
 
-            JOptionPane.showMessageDialog(this, "Wrong Answer! The correct answer was: " + correctAnswer, "Result", JOptionPane.ERROR_MESSAGE);
+            JOptionPane.showMessageDialog(this, "Wrong Answer! The correct answer was: " + answer.getCorrectAnswer(), "Result", JOptionPane.ERROR_MESSAGE);
         }
 
-        currentQuestionIndex++;
         btnNext.setEnabled(true);
         displayQuestion();
     }
 
+    /**
+     * Shows the session's current score in the header.
+     */
+    private void updateScoreLabel() {
+        if (speedMode) {
+            lblScore.setText(String.format("Points: %d (%d / %d)", session.getScore(), session.getCorrectCount(),
+                    session.getTotalQuestions()));
+        } else {
+            lblScore.setText(String.format("Score: %d / %d", session.getScore(), session.getTotalQuestions()));
+        }
+    }
+
     /**
      * Helper method to style the correct option when the user has chosen an incorrect answer.
      * @param rb The JRadioButton that represents the correct answer.
@@ -342,10 +482,9 @@ public class Game extends JFrame {
      * @param enabled `true` to enable, `false` to disable.
      */
     private void setRadioButtonsEnabled(boolean enabled) {
-        rbOptionA.setEnabled(enabled);
-        rbOptionB.setEnabled(enabled);
-        rbOptionC.setEnabled(enabled);
-        rbOptionD.setEnabled(enabled);
+        for (JRadioButton rb : optionButtons) {
+            rb.setEnabled(enabled);
+        }
     }
 
     /**
@@ -353,10 +492,9 @@ public class Game extends JFrame {
      * This is called at the beginning of displaying each new question.
      */
     private void resetRadioButtonStyles() {
-        styleRadioButton(rbOptionA);
-        styleRadioButton(rbOptionB);
-        styleRadioButton(rbOptionC);
-        styleRadioButton(rbOptionD);
+        for (JRadioButton rb : optionButtons) {
+            styleRadioButton(rb);
+        }
     }
 
     /**
@@ -364,91 +502,88 @@ public class Game extends JFrame {
      * and navigates back to the Home page.
      */
     private void endGame() {
-        saveScore();
-
-        JOptionPane.showMessageDialog(this,
-                String.format("Quiz Finished! Your final score is: %d out of %d.", score, questions.size()),
-                "Quiz End", JOptionPane.INFORMATION_MESSAGE);
-
-        // Transition back to the Home page (assuming 'Home' class exists and handles username)
-        Home homePage = new Home(username);
-        homePage.setVisible(true);
-        dispose();
-    }
-
-    /**
-     * Saves the player's final score to the 'scores' table in the database.
-     * Also calculates and updates the user's running average score.
-     */
-    private void saveScore() {
-        double currentUserAverageScore = 0.0;
-        int existingScoresCount = 0;
-        int existingScoresSum = 0;
-
-        // Step 1: Fetch existing scores for accurate average calculation
-        String selectSql = "SELECT SUM(score), COUNT(score) FROM scores WHERE username = ?";
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
-
-            selectStmt.setString(1, username);
-            try (ResultSet rs = selectStmt.executeQuery()) {
-                if (rs.next()) {
-                    existingScoresSum = rs.getInt(1);
-                    existingScoresCount = rs.getInt(2);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error fetching existing scores for average calculation: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        // Calculate the new average score including the current quiz submission
-        int totalScoresIncludingCurrent = existingScoresSum + this.score;
-        int totalCountIncludingCurrent = existingScoresCount + 1;
-
-        if (totalCountIncludingCurrent > 0) {
-            currentUserAverageScore = (double) totalScoresIncludingCurrent / totalCountIncludingCurrent;
-        } else {
-            currentUserAverageScore = this.score;
+        if (countdownTimer != null) {
+            countdownTimer.stop();
         }
-
-        // Step 2: Insert the current score and the newly calculated average into the database
-        String insertSql = "INSERT INTO scores (username, score, submission_time, average_score) VALUES (?, ?, NOW(), ?)";
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-
-            insertStmt.setString(1, username);
-            insertStmt.setInt(2, this.score);
-            insertStmt.setDouble(3, currentUserAverageScore);
-
-            insertStmt.executeUpdate();
-            System.out.println("Score saved successfully for " + username + ": " + this.score +
-                    " (User Average at Submission: " + String.format("%.2f", currentUserAverageScore) + ")");
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error saving score: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+        int finalScore = session.getScore();
+        // Submitting waits for the score journal's fsync, so it runs off the EDT;
+        // the session is not touched here again except for counts finish() leaves alone
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                session.finish();
+                System.out.println("Score queued for " + username + ": " + finalScore);
+                return null;
+            }
+        }.execute();
+
+        String summary = speedMode
+                ? String.format("Quiz Finished! You scored %d points with %d of %d correct.", finalScore,
+                        session.getCorrectCount(), session.getTotalQuestions())
+                : String.format("Quiz Finished! Your final score is: %d out of %d.", finalScore, session.getTotalQuestions());
+        JOptionPane.showMessageDialog(this, summary, "Quiz End", JOptionPane.INFORMATION_MESSAGE);
+
+        // Transition back to the Home page, or to Login if the session lapsed during the quiz
+        if (!DatabaseConnection.getSessionStore().isActive(userSession)) {
+            JOptionPane.showMessageDialog(this, "Your session has expired. Please log in again.",
+                    "Session Expired", JOptionPane.WARNING_MESSAGE);
+            new Login().setVisible(true);
+            dispose();
+            return;
         }
+        Home homePage = new Home(userSession);
+        homePage.setVisible(true);
+        dispose();
     }
 
     /**
-     * Inner static class to represent a single quiz question.
+     * Static nested class to represent a single quiz question.
      * Encapsulates the question text, its four options, and the correct answer.
      */
-    private static class Question {
+    public static class Question {
+        /** Number of answer options on every question. */
+        public static final int OPTION_COUNT = 4;
+
         private String question;
         private String optionA;
         private String optionB;
         private String optionC;
         private String optionD;
-        private String correctAnswer;
-
-        public Question(String question, String optionA, String optionB, String optionC, String optionD, String correctAnswer) {
+        private int correctOption;
+
+        /**
+         * @param correctOption Index of the correct option, 0 for A through 3 for D
+         */
+        public Question(String question, String optionA, String optionB, String optionC, String optionD, int correctOption) {
+            if (correctOption < -1 || correctOption >= OPTION_COUNT) {
+                throw new IllegalArgumentException("Correct option out of range: " + correctOption);
+            }
             this.question = question;
             this.optionA = optionA;
             this.optionB = optionB;
             this.optionC = optionC;
             this.optionD = optionD;
-            this.correctAnswer = correctAnswer;
+            this.correctOption = correctOption;
+        }
+
+        /**
+         * Builds a question whose correct answer is given as text, as in rows saved before
+         * answers were stored by option index. The text is matched against the options once,
+         * ignoring surrounding whitespace; if none matches, no option is graded correct.
+         */
+        public Question(String question, String optionA, String optionB, String optionC, String optionD, String correctAnswer) {
+            this(question, optionA, optionB, optionC, optionD, indexOfOption(correctAnswer, optionA, optionB, optionC, optionD));
+        }
+
+        private static int indexOfOption(String answer, String... options) {
+            if (answer != null) {
+                for (int i = 0; i < options.length; i++) {
+                    if (options[i] != null && options[i].trim().equals(answer.trim())) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
         }
 
         // Getters for question properties
@@ -457,7 +592,27 @@ public class Game extends JFrame {
         public String getOptionB() { return optionB; }
         public String getOptionC() { return optionC; }
         public String getOptionD() { return optionD; }
-        public String getCorrectAnswer() { return correctAnswer; }
+        /** @return Text of the correct option, or null if no option is marked correct */
+        public String getCorrectAnswer() { return correctOption < 0 ? null : getOption(correctOption); }
+
+        /**
+         * @param index Option index, 0 for A through 3 for D
+         * @return The option text
+         */
+        public String getOption(int index) {
+            switch (index) {
+                case 0: return optionA;
+                case 1: return optionB;
+                case 2: return optionC;
+                case 3: return optionD;
+                default: throw new IllegalArgumentException("Option index out of range: " + index);
+            }
+        }
+
+        /**
+         * @return Index of the correct option, 0 for A through 3 for D, or -1 if none is marked correct
+         */
+        public int getCorrectOption() { return correctOption; }
     }
 
     /**
@@ -472,7 +627,8 @@ public class Game extends JFrame {
         // Schedule GUI creation and display on the EDT
         EventQueue.invokeLater(() -> {
             try {
-                Game game = new Game("PlayerOne", "Easy"); // Example: Launch game for a test user
+                Game game = new Game(DatabaseConnection.getSessionStore()
+                        .create("PlayerOne", null, UserSession.ROLE_PLAYER), "Easy"); // Example: Launch game for a test user
                 game.setVisible(true);
             } catch (Exception e) {
                 e.printStackTrace();
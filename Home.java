@@ -9,11 +9,13 @@ import java.awt.event.*;
 import java.sql.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class Home extends JFrame {
 
     private static final long serialVersionUID = 1L;
     private JPanel contentPane;
+    private final UserSession userSession;
     private String username;
 
     private static final Color GRADIENT_START = new Color(52, 73, 94); // Dark Blue-Gray
@@ -31,18 +33,14 @@ public class Home extends JFrame {
     private static final Color TABLE_ROW_ODD = new Color(236, 240, 241);
     private static final Color BORDER_LIGHT = new Color(200, 200, 200);
 
-    // Database connection details
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/quiz_app_db";
-    private static final String DB_USER = "quiz_user";
-    private static final String DB_PASSWORD = "secure_quiz_pw";
-
     /**
      * Constructor for the Home frame.
      * Initializes the UI components and sets up event listeners.
-     * @param username The username of the logged-in user to personalize the page.
+     * @param userSession The logged-in user's session, used to personalize the page.
      */
-    public Home(String username) {
-        this.username = username;
+    public Home(UserSession userSession) {
+        this.userSession = userSession;
+        this.username = userSession.getUsername();
 
         setTitle("Home");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -137,6 +135,7 @@ public class Home extends JFrame {
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to log out?", "Confirm Logout", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
         if (confirm == JOptionPane.YES_OPTION) {
+            DatabaseConnection.getSessionStore().invalidate(userSession);
             Login loginPage = new Login(); // Assuming Login class is available
             loginPage.setVisible(true);
             dispose();
@@ -145,7 +144,8 @@ public class Home extends JFrame {
 
     /**
      * Opens a new JFrame to display the leaderboard (top scores).
-     * Fetches scores from the database and displays them in a styled JTable.
+     * Reads the in-memory leaderboard and displays it in a styled JTable,
+     * with filters for difficulty and time period.
      */
     private void viewLeaderboard() {
         JFrame leaderboardFrame = new JFrame("Quiz Leaderboard");
@@ -187,38 +187,95 @@ public class Home extends JFrame {
         DefaultTableModel model = new DefaultTableModel(new String[]{"Rank", "Username", "Score", "Average Score"}, 0);
         leaderboardTable.setModel(model);
 
-        String sql = "SELECT username, score, average_score FROM scores ORDER BY score DESC LIMIT 10";
+        // Filters for the board to show
+        JComboBox<String> difficultyFilter = new JComboBox<>(new String[]{Leaderboard.ALL_DIFFICULTIES, "Easy", "Medium", "Hard",
+                QuizSession.timedDifficulty("Easy"), QuizSession.timedDifficulty("Medium"), QuizSession.timedDifficulty("Hard")});
+        JComboBox<Leaderboard.Window> windowFilter = new JComboBox<>(Leaderboard.Window.values());
+        difficultyFilter.setFont(new Font("Segoe UI", Font.PLAIN, 15));
+        windowFilter.setFont(new Font("Segoe UI", Font.PLAIN, 15));
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        filterPanel.setBackground(TABLE_ROW_EVEN);
+        JLabel lblDifficulty = new JLabel("Difficulty:");
+        lblDifficulty.setFont(new Font("Segoe UI", Font.BOLD, 15));
+        lblDifficulty.setForeground(TEXT_DARK);
+        JLabel lblWindow = new JLabel("Period:");
+        lblWindow.setFont(new Font("Segoe UI", Font.BOLD, 15));
+        lblWindow.setForeground(TEXT_DARK);
+        filterPanel.add(lblDifficulty);
+        filterPanel.add(difficultyFilter);
+        filterPanel.add(lblWindow);
+        filterPanel.add(windowFilter);
+        leaderboardFrame.add(filterPanel, BorderLayout.NORTH);
+
+        Runnable refresh = () -> fillLeaderboard(model, (String) difficultyFilter.getSelectedItem(),
+                (Leaderboard.Window) windowFilter.getSelectedItem(), leaderboardFrame);
+        difficultyFilter.addActionListener(e -> refresh.run());
+        windowFilter.addActionListener(e -> refresh.run());
+        refresh.run();
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
+        JScrollPane scrollPane = new JScrollPane(leaderboardTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        leaderboardFrame.add(scrollPane, BorderLayout.CENTER);
+
+        leaderboardFrame.setVisible(true);
+    }
 
+    /**
+     * Fills the leaderboard table from the in-memory {@link Leaderboard}.
+     * The first lookup in the process seeds the boards on a background thread
+     * and shows a placeholder row until they are ready.
+     * @param model The table model to refill.
+     * @param difficulty The difficulty board to show, or {@link Leaderboard#ALL_DIFFICULTIES}.
+     * @param window The time window to rank over.
+     * @param parent The frame to attach error dialogs to.
+     */
+    private void fillLeaderboard(DefaultTableModel model, String difficulty, Leaderboard.Window window, JFrame parent) {
+        Leaderboard leaderboard = DatabaseConnection.getLeaderboard();
+        model.setRowCount(0);
+        if (leaderboard.isLoaded()) {
             int rank = 1;
-            while (resultSet.next()) {
-                String user = resultSet.getString("username");
-                int score = resultSet.getInt("score");
-                double avgScoreAtSubmission = resultSet.getDouble("average_score");
-                model.addRow(new Object[]{rank++, user, score, String.format("%.2f", avgScoreAtSubmission)});
+            for (Leaderboard.Entry entry : leaderboard.top(difficulty, window)) {
+                model.addRow(new Object[]{rank++, entry.getUsername(), entry.getScore(),
+                        String.format("%.2f", entry.getAverageScore())});
             }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(leaderboardFrame, "Error retrieving leaderboard: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+            return;
         }
 
-        JScrollPane scrollPane = new JScrollPane(leaderboardTable);
-        scrollPane.setBorder(BorderFactory.createEmptyBorder());
-        leaderboardFrame.add(scrollPane, BorderLayout.CENTER);
+        model.addRow(new Object[]{"", "Loading...", "", ""});
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                leaderboard.load();
+                return null;
+            }
 
-        leaderboardFrame.setVisible(true);
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    fillLeaderboard(model, difficulty, window, parent);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    model.setRowCount(0);
+                    JOptionPane.showMessageDialog(parent, "Error retrieving leaderboard: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            }
+        }.execute();
     }
 
     /**
      * Displays a modal dialog allowing the user to select a quiz difficulty level.
+     * Questions for every level start loading in the background while the user chooses.
      */
     private void showDifficultyDialog() {
+        for (String level : new String[]{"Easy", "Medium", "Hard"}) {
+            QuestionLoader.prefetch(level);
+        }
+
         JDialog difficultyDialog = new JDialog(this, "Select Difficulty", true);
-        difficultyDialog.setSize(350, 250);
+        difficultyDialog.setSize(350, 300);
         difficultyDialog.setLocationRelativeTo(this);
         difficultyDialog.setLayout(new GridBagLayout());
         difficultyDialog.setResizable(false);
@@ -236,20 +293,29 @@ public class Home extends JFrame {
         gbc.ipady = 10;
         difficultyDialog.add(lblTitle, gbc);
 
+        JCheckBox chkSpeedMode = new JCheckBox("Speed mode (timed, keys 1-4 / A-D)");
+        chkSpeedMode.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        chkSpeedMode.setForeground(TEXT_DARK);
+        chkSpeedMode.setBackground(TABLE_ROW_EVEN);
+
         // Difficulty buttons with action listeners to start quiz
-        JButton btnEasy = createDifficultyButton("Easy", difficultyDialog);
+        JButton btnEasy = createDifficultyButton("Easy", difficultyDialog, chkSpeedMode);
         gbc.gridy = 1;
         gbc.ipady = 15;
         difficultyDialog.add(btnEasy, gbc);
 
-        JButton btnMedium = createDifficultyButton("Medium", difficultyDialog);
+        JButton btnMedium = createDifficultyButton("Medium", difficultyDialog, chkSpeedMode);
         gbc.gridy = 2;
         difficultyDialog.add(btnMedium, gbc);
 
-        JButton btnHard = createDifficultyButton("Hard", difficultyDialog);
+        JButton btnHard = createDifficultyButton("Hard", difficultyDialog, chkSpeedMode);
         gbc.gridy = 3;
         difficultyDialog.add(btnHard, gbc);
 
+        gbc.gridy = 4;
+        gbc.ipady = 0;
+        difficultyDialog.add(chkSpeedMode, gbc);
+
         difficultyDialog.setVisible(true);
     }
 
@@ -257,9 +323,10 @@ public class Home extends JFrame {
      * Helper method to create styled buttons for the difficulty dialog.
      * @param text The text for the button.
      * @param dialog The parent dialog to be closed.
+     * @param speedMode The checkbox choosing speed mode.
      * @return A styled JButton.
      */
-    private JButton createDifficultyButton(String text, JDialog dialog) {
+    private JButton createDifficultyButton(String text, JDialog dialog, JCheckBox speedMode) {
         JButton button = new JButton(text);
         button.setFont(new Font("Segoe UI", Font.BOLD, 16));
         button.setBackground(BUTTON_LEADERBOARD);
@@ -283,18 +350,26 @@ public class Home extends JFrame {
                 button.setBackground(BUTTON_LEADERBOARD);
             }
         });
-        button.addActionListener(e -> startQuiz(text, dialog));
+        button.addActionListener(e -> startQuiz(text, speedMode.isSelected(), dialog));
         return button;
     }
 
     /**
      * Starts the quiz game with the selected difficulty and closes the difficulty dialog.
      * @param difficulty The selected difficulty level.
+     * @param speedMode Whether to play a timed, keyboard-driven round.
      * @param dialog The difficulty selection dialog to be closed.
      */
-    private void startQuiz(String difficulty, JDialog dialog) {
+    private void startQuiz(String difficulty, boolean speedMode, JDialog dialog) {
         dialog.dispose();
-        Game gamePage = new Game(username, difficulty); // Assuming Game class is available
+        if (!DatabaseConnection.getSessionStore().isActive(userSession)) {
+            JOptionPane.showMessageDialog(this, "Your session has expired. Please log in again.",
+                    "Session Expired", JOptionPane.WARNING_MESSAGE);
+            new Login().setVisible(true);
+            dispose();
+            return;
+        }
+        Game gamePage = new Game(userSession, difficulty, speedMode); // Assuming Game class is available
         gamePage.setVisible(true);
         dispose();
     }
@@ -310,7 +385,8 @@ public class Home extends JFrame {
         // Schedule GUI creation and display on the EDT
         EventQueue.invokeLater(() -> {
             try {
-                Home home = new Home("TestUser"); // Pass a test username
+                Home home = new Home(DatabaseConnection.getSessionStore()
+                        .create("TestUser", null, UserSession.ROLE_PLAYER)); // Session for a test user
                 home.setVisible(true);
             } catch (Exception e) {
                 e.printStackTrace();
@@ -0,0 +1,305 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory top-N leaderboards, overall and per difficulty, for all time and
+ * for recent time windows. Boards are bounded sorted arrays updated as scores
+ * are written by {@link ScoreSubmissionQueue}, so reading one is O(N) and
+ * never touches the database. Windowed boards keep one top-N per hour and
+ * merge the hours inside the window, which is exact at hour granularity.
+ * <p>
+ * The boards are seeded once from the scores table by {@link #load()}, off the
+ * EDT. After that, scores written by other clients are picked up on demand:
+ * when {@link #top} finds the boards older than {@code quiz.leaderboard.refreshMs}
+ * (15000), it starts a background refresh and returns the current boards
+ * meanwhile, so an unviewed leaderboard never queries the database. A refresh
+ * reads only rows with an id above the last one seen. The read starts a
+ * little below that id, and ids already applied are skipped, so a row whose
+ * insert committed out of id order is not missed. The monitor is only held for in-memory work.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class Leaderboard {
+    /** Board key covering every untimed difficulty level. */
+    public static final String ALL_DIFFICULTIES = "All";
+
+    private static final int SIZE = Integer.getInteger("quiz.leaderboard.size", 10);
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long REFRESH_INTERVAL_MS = Long.getLong("quiz.leaderboard.refreshMs", 15_000L);
+    // Ids below the highest seen that are read again, for inserts that commit out of id order
+    private static final long ID_LOOKBACK = 1_000;
+
+    /**
+     * Time windows a board can be viewed over.
+     */
+    public enum Window {
+        ALL_TIME("All Time", 0),
+        LAST_24_HOURS("Last 24 Hours", TimeUnit.HOURS.toMillis(24)),
+        LAST_7_DAYS("Last 7 Days", TimeUnit.DAYS.toMillis(7));
+
+        private final String label;
+        private final long lengthMs;
+
+        Window(String label, long lengthMs) {
+            this.label = label;
+            this.lengthMs = lengthMs;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final QuizRepository repository;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quiz-leaderboard-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Object seedLock = new Object();
+
+    // Guarded by this
+    private Map<String, Board> boards = new HashMap<>();
+    private volatile boolean loaded;
+    private long lastSeenId;
+    private final TreeSet<Long> recentIds = new TreeSet<>(); // Applied ids above lastSeenId - ID_LOOKBACK
+    private volatile long refreshedAt;
+
+    Leaderboard(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Seeds the boards from the database if that has not happened yet. Blocks
+     * while seeding, so call it off the EDT; other callers wait for the same seed.
+     *
+     * @throws SQLException if the seed queries fail; a later call tries again
+     */
+    public void load() throws SQLException {
+        synchronized (seedLock) {
+            if (loaded) {
+                return;
+            }
+            // Taken first, so every row above it is left to the incremental refresh
+            long seedFromId = repository.fetchMaxScoreId();
+            Map<String, Board> fresh = new HashMap<>();
+            List<Long> seededIds = new ArrayList<>();
+            long since = System.currentTimeMillis() - Window.LAST_7_DAYS.lengthMs;
+            repository.forEachScoreForLeaderboard(SIZE, since, entry -> {
+                add(fresh, entry);
+                seededIds.add(entry.id);
+            });
+            synchronized (this) {
+                boards = fresh;
+                lastSeenId = seedFromId;
+                for (long id : seededIds) {
+                    if (id > seedFromId - ID_LOOKBACK) {
+                        recentIds.add(id);
+                    }
+                }
+                refreshedAt = System.currentTimeMillis();
+                loaded = true;
+            }
+        }
+    }
+
+    /** @return true once {@link #load()} has seeded the boards */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the current top scores for a difficulty and window from memory.
+     * If the boards are due a refresh, one is started in the background.
+     *
+     * @param difficulty Difficulty level, or {@link #ALL_DIFFICULTIES}
+     * @param window Time window to rank over
+     * @return Entries ranked best first, at most the board size; empty until {@link #load()} completes
+     */
+    public List<Entry> top(String difficulty, Window window) {
+        if (loaded && System.currentTimeMillis() - refreshedAt > REFRESH_INTERVAL_MS
+                && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } catch (SQLException e) {
+                    System.err.println("Leaderboard refresh failed: " + e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        synchronized (this) {
+            Board board = boards.get(difficulty);
+            return board == null ? new ArrayList<>() : board.top(window, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Records a score that has just been written to the database.
+     */
+    synchronized void record(Entry entry) {
+        if (!loaded) {
+            return; // The seed or the first refresh will include this score
+        }
+        apply(entry);
+    }
+
+    /**
+     * Applies rows inserted since the last refresh, by any client.
+     */
+    void refresh() throws SQLException {
+        long from;
+        synchronized (this) {
+            from = Math.max(0, lastSeenId - ID_LOOKBACK);
+        }
+        List<Entry> rows = new ArrayList<>();
+        repository.forEachScoreAfter(from, rows::add);
+        synchronized (this) {
+            for (Entry row : rows) {
+                apply(row);
+            }
+            refreshedAt = System.currentTimeMillis();
+        }
+    }
+
+    // Adds a row once, however many times it is read or recorded
+    private void apply(Entry entry) {
+        if (entry.id > 0) {
+            long floor = lastSeenId - ID_LOOKBACK;
+            if (entry.id <= floor || !recentIds.add(entry.id)) {
+                return;
+            }
+            if (entry.id > lastSeenId) {
+                lastSeenId = entry.id;
+                recentIds.headSet(lastSeenId - ID_LOOKBACK, true).clear();
+            }
+        }
+        add(boards, entry);
+    }
+
+    private static void add(Map<String, Board> target, Entry entry) {
+        // Timed scores are on a different scale, so they only rank on their own boards
+        if (!QuizSession.isTimedDifficulty(entry.difficulty)) {
+            target.computeIfAbsent(ALL_DIFFICULTIES, k -> new Board()).add(entry);
+        }
+        if (entry.difficulty != null) {
+            target.computeIfAbsent(entry.difficulty, k -> new Board()).add(entry);
+        }
+    }
+
+    /**
+     * All-time top-N plus one top-N per hour for the longest window.
+     */
+    private static class Board {
+        private final TopN allTime = new TopN();
+        private final TreeMap<Long, TopN> hourly = new TreeMap<>();
+
+        void add(Entry entry) {
+            allTime.offer(entry);
+            long hour = entry.submittedAt / HOUR_MS;
+            long oldestHour = (System.currentTimeMillis() - Window.LAST_7_DAYS.lengthMs) / HOUR_MS;
+            if (hour >= oldestHour) {
+                hourly.computeIfAbsent(hour, h -> new TopN()).offer(entry);
+            }
+            hourly.headMap(oldestHour).clear();
+        }
+
+        List<Entry> top(Window window, long now) {
+            if (window == Window.ALL_TIME) {
+                return allTime.toList();
+            }
+            TopN merged = new TopN();
+            for (TopN bucket : hourly.tailMap((now - window.lengthMs) / HOUR_MS).values()) {
+                for (int i = 0; i < bucket.size; i++) {
+                    merged.offer(bucket.entries[i]);
+                }
+            }
+            return merged.toList();
+        }
+    }
+
+    /**
+     * Bounded array kept sorted best first; insert and read are O(N).
+     */
+    private static class TopN {
+        private final Entry[] entries = new Entry[SIZE];
+        private int size;
+
+        void offer(Entry entry) {
+            if (size == SIZE && !entry.beats(entries[size - 1])) {
+                return;
+            }
+            int i = size < SIZE ? size++ : size - 1;
+            while (i > 0 && entry.beats(entries[i - 1])) {
+                entries[i] = entries[i - 1];
+                i--;
+            }
+            entries[i] = entry;
+        }
+
+        List<Entry> toList() {
+            List<Entry> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(entries[i]);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * One leaderboard row: a single quiz result.
+     */
+    public static class Entry {
+        private final long id;
+        private final String username;
+        private final int score;
+        private final double averageScore;
+        private final String difficulty;
+        private final long submittedAt;
+
+        public Entry(String username, int score, double averageScore, String difficulty, long submittedAt) {
+            this(0, username, score, averageScore, difficulty, submittedAt);
+        }
+
+        /**
+         * @param id Row id in the scores table, or 0 if unknown
+         */
+        public Entry(long id, String username, int score, double averageScore, String difficulty, long submittedAt) {
+            this.id = id;
+            this.username = username;
+            this.score = score;
+            this.averageScore = averageScore;
+            this.difficulty = difficulty;
+            this.submittedAt = submittedAt;
+        }
+
+        /** Higher score wins; on a tie the earlier result ranks first. */
+        boolean beats(Entry other) {
+            return score != other.score ? score > other.score : submittedAt < other.submittedAt;
+        }
+
+        /** @return row id in the scores table, or 0 if unknown */
+        public long getId() { return id; }
+        public String getUsername() { return username; }
+        public int getScore() { return score; }
+        public double getAverageScore() { return averageScore; }
+        public String getDifficulty() { return difficulty; }
+        public long getSubmittedAt() { return submittedAt; }
+    }
+}
@@ -0,0 +1,522 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Load-generation harness that plays the sign-up, login, fetch questions,
+ * answer and save score flow with many simulated players at once, and
+ * reports throughput and p50/p95/p99 latency per stage.
+ * <p>
+ * Three targets are supported, chosen with {@code -Dquiz.load.target}:
+ * <ul>
+ *   <li>{@code embedded} (default) drives the real {@link QuizRepository},
+ *       {@link QuizSession} and score queue against an {@link EmbeddedDatabase}
+ *       seeded with {@code quiz.load.questions} (3000) questions, so password
+ *       hashing, rate limiting, the question cache, batch score writes and the
+ *       journal fsync all run as in the application.</li>
+ *   <li>{@code db} drives the same path
+ *       {@link QuizSession} and score queue against a database. It creates
+ *       users and scores, so it only runs with an explicit
+ *       {@code -Dquiz.db.url} pointing at a scratch MySQL. Scores are
+ *       journaled to a temporary file, or to {@code -Dquiz.scores.journalFile};
+ *       never to the application's own journal, whose unsent scores would
+ *       otherwise be adopted into the scratch database, and the run's
+ *       uncommitted scores replayed into the real one.</li>
+ *   <li>{@code standin} replaces the data path with an in-process stand-in
+ *       that charges a fixed {@code quiz.load.standInLatencyMs} (2) per call
+ *       behind a semaphore sized like the connection pool. It runs none of the
+ *       application's code and only shows how the harness behaves under pool
+ *       contention.</li>
+ * </ul>
+ * Saving a score is reported as two stages: {@code submit}, the time the
+ * player waits for the score to be journaled and queued, and {@code commit},
+ * the time from submit until the score queue's batch insert commits.
+ * Other settings: {@code quiz.load.players} (100), {@code quiz.load.quizzes}
+ * per player (1), {@code quiz.load.thinkMs} mean think time between actions
+ * (200) and {@code quiz.load.difficulty} (Easy).
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class LoadGenerator {
+    private static final String[] STAGES = {"signup", "login", "fetch", "answer", "submit", "commit"};
+    private static final long DRAIN_TIMEOUT_MS = 60_000L;
+
+    private final Backend backend;
+    private final int players;
+    private final int quizzesPerPlayer;
+    private final long thinkMs;
+    private final String difficulty;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+
+    private LoadGenerator(Backend backend, int players, int quizzesPerPlayer, long thinkMs, String difficulty) {
+        this.backend = backend;
+        this.players = players;
+        this.quizzesPerPlayer = quizzesPerPlayer;
+        this.thinkMs = thinkMs;
+        this.difficulty = difficulty;
+        for (String stage : STAGES) {
+            recorders.put(stage, new LatencyRecorder());
+        }
+        String prefix = "load-" + runId + "-";
+        LatencyRecorder commits = recorders.get("commit");
+        backend.onCommit((username, nanos) -> {
+            if (username.startsWith(prefix)) {
+                commits.record(nanos);
+            }
+        });
+    }
+
+    /**
+     * Runs every player to completion and prints the report.
+     */
+    private void run() throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(players);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(players);
+        for (int i = 0; i < players; i++) {
+            int player = i;
+            Thread t = new Thread(null, () -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    play(player);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "quiz-load-player-" + i, 256 * 1024);
+            t.setDaemon(true);
+            t.start();
+        }
+        ready.await();
+        System.out.printf("Running %d player(s) x %d quiz(zes) against %s, think time ~%d ms%n",
+                players, quizzesPerPlayer, backend.name(), thinkMs);
+
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long elapsedNanos = System.nanoTime() - start;
+
+        long drainStart = System.nanoTime();
+        LatencyRecorder commits = recorders.get("commit");
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (commits.count() < submitted.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        long drainNanos = System.nanoTime() - drainStart;
+        backend.drain();
+
+        report(elapsedNanos, drainNanos);
+    }
+
+    private void play(int player) throws InterruptedException {
+        String username = "load-" + runId + "-" + player;
+        String password = "pw-" + player;
+
+        if (!timed("signup", () -> backend.signup(username, password, "Loadland"))) {
+            return;
+        }
+        think();
+        if (!timed("login", () -> backend.login(username, password))) {
+            return;
+        }
+        for (int quiz = 0; quiz < quizzesPerPlayer; quiz++) {
+            think();
+            List<List<Game.Question>> fetched = new ArrayList<>(1);
+            if (!timed("fetch", () -> fetched.add(backend.fetch(difficulty)))) {
+                return;
+            }
+            QuizSession session = backend.newSession(username, difficulty);
+            session.start(fetched.get(0));
+            while (session.hasMoreQuestions()) {
+                think();
+                int option = ThreadLocalRandom.current().nextInt(Game.Question.OPTION_COUNT);
+                timed("answer", () -> session.answer(option));
+            }
+            if (timed("submit", () -> backend.save(session))) {
+                submitted.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Times one stage call. A call that throws, or returns false, counts as an error.
+     *
+     * @return true if the call succeeded
+     */
+    private boolean timed(String stage, Call call) {
+        LatencyRecorder recorder = recorders.get(stage);
+        long start = System.nanoTime();
+        try {
+            Object result = call.run();
+            recorder.record(System.nanoTime() - start);
+            if (Boolean.FALSE.equals(result)) {
+                recorder.error();
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            recorder.record(System.nanoTime() - start);
+            if (recorder.error() == 1) {
+                System.err.println("First " + stage + " error: " + e);
+            }
+            return false;
+        }
+    }
+
+    private void think() throws InterruptedException {
+        if (thinkMs > 0) {
+            // Uniform in [0, 2 * mean] so players drift apart instead of moving in lockstep
+            Thread.sleep(ThreadLocalRandom.current().nextLong(2 * thinkMs + 1));
+        }
+    }
+
+    private void report(long elapsedNanos, long drainNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nWall time %.2f s%n", seconds);
+        System.out.printf("%-8s %9s %7s %10s %9s %9s %9s %9s%n",
+                "stage", "count", "errors", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder r = entry.getValue();
+            long[] sorted = r.sorted();
+            System.out.printf("%-8s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), sorted.length, r.errors.get(), sorted.length / seconds,
+                    millis(percentile(sorted, 50)), millis(percentile(sorted, 95)),
+                    millis(percentile(sorted, 99)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+        int missing = submitted.get() - recorders.get("commit").count();
+        System.out.printf("Score queue drained in %.2f s after the last player finished%s%n", drainNanos / 1e9,
+                missing > 0 ? " (" + missing + " score(s) not committed in time)" : "");
+        if (backend instanceof DatabaseBackend) {
+            QuizRepository repository = ((DatabaseBackend) backend).repository;
+            System.out.println(repository.getPasswordHasher());
+            System.out.println(repository.getUsernameFilter());
+        }
+    }
+
+    /** Nearest-rank percentile of sorted samples. */
+    private static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * A stage call; returning {@link Boolean#FALSE} marks it failed.
+     */
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Latency samples of one stage. Samples are appended under a lock, which is
+     * cheap next to the calls being measured.
+     */
+    private static class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int size;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        int error() {
+            return errors.incrementAndGet();
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * The operations a player performs, against a real or stand-in database.
+     */
+    private interface Backend {
+        String name();
+        boolean signup(String username, String password, String country) throws SQLException;
+        boolean login(String username, String password) throws SQLException;
+        List<Game.Question> fetch(String difficulty) throws SQLException;
+        QuizSession newSession(String username, String difficulty);
+        /** Submits a finished quiz's score, returning once it is queued. */
+        Object save(QuizSession session) throws SQLException;
+        /** Registers the receiver of each saved score's submit-to-commit time. */
+        void onCommit(CommitTimer timer);
+        /** Stops background writers; called once every score is committed or the wait timed out. */
+        void drain();
+    }
+
+    /**
+     * Receives the submit-to-commit time of a saved score.
+     */
+    private interface CommitTimer {
+        void committed(String username, long nanos);
+    }
+
+    /**
+     * The application's own data path: repository, question cache and a
+     * write-behind queue journaling to a file of its own.
+     */
+    private static class DatabaseBackend implements Backend {
+        private final String name;
+        private final QuizRepository repository;
+        private final ScoreSubmissionQueue scoreQueue;
+        private final Path journal;
+        private final boolean temporaryJournal;
+
+        DatabaseBackend(String name, QuizRepository repository, Path journal, boolean temporaryJournal) {
+            this.name = name;
+            this.repository = repository;
+            this.journal = journal;
+            this.temporaryJournal = temporaryJournal;
+            this.scoreQueue = new ScoreSubmissionQueue(repository, new Leaderboard(repository), journal);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean signup(String username, String password, String country) throws SQLException {
+            return repository.registerUser(username, password, country);
+        }
+
+        @Override
+        public boolean login(String username, String password) throws SQLException {
+            return repository.authenticate(username, password).isSuccess();
+        }
+
+        @Override
+        public List<Game.Question> fetch(String difficulty) throws SQLException {
+            return repository.fetchRandomQuestions(difficulty, QuestionLoader.QUESTIONS_PER_QUIZ);
+        }
+
+        @Override
+        public QuizSession newSession(String username, String difficulty) {
+            return new QuizSession(username, difficulty, scoreQueue);
+        }
+
+        @Override
+        public Object save(QuizSession session) {
+            return session.finish();
+        }
+
+        @Override
+        public void onCommit(CommitTimer timer) {
+            scoreQueue.setCommitListener((submission, nanos) -> timer.committed(submission.getUsername(), nanos));
+        }
+
+        @Override
+        public void drain() {
+            int pending = scoreQueue.getPendingCount();
+            scoreQueue.shutdown();
+            if (pending > 0 || !temporaryJournal) {
+                System.out.println("Score journal kept at " + journal);
+                return;
+            }
+            try (Stream<Path> files = Files.walk(journal.getParent())) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                System.err.println("Could not remove the temporary score journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * In-process database stand-in with a fixed per-call latency and a
+     * connection limit matching the pool's maximum size.
+     */
+    private static class StandInBackend implements Backend {
+        private final Map<String, String> users = new ConcurrentHashMap<>(); // username to password digest
+        private final List<Game.Question> questionBank = new ArrayList<>();
+        private final AtomicInteger savedScores = new AtomicInteger();
+        private final Semaphore connections = new Semaphore(Integer.getInteger("quiz.db.pool.maxSize", 10), true);
+        private final long latencyMs = Long.getLong("quiz.load.standInLatencyMs", 2L);
+        private volatile CommitTimer commitTimer;
+
+        StandInBackend() {
+            for (int i = 0; i < 500; i++) {
+                questionBank.add(new Game.Question("Stand-in question " + i + "?", "A" + i, "B" + i, "C" + i, "D" + i, "A" + i));
+            }
+        }
+
+        @Override
+        public String name() {
+            return "the in-memory stand-in (" + latencyMs + " ms/call)";
+        }
+
+        @Override
+        public boolean signup(String username, String password, String country) throws SQLException {
+            query();
+            return users.putIfAbsent(username, digest(password)) == null;
+        }
+
+        @Override
+        public boolean login(String username, String password) throws SQLException {
+            query();
+            return digest(password).equals(users.get(username));
+        }
+
+        @Override
+        public List<Game.Question> fetch(String difficulty) throws SQLException {
+            query();
+            List<Game.Question> picked = new ArrayList<>(QuestionLoader.QUESTIONS_PER_QUIZ);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < QuestionLoader.QUESTIONS_PER_QUIZ; i++) {
+                picked.add(questionBank.get(random.nextInt(questionBank.size())));
+            }
+            return picked;
+        }
+
+        @Override
+        public QuizSession newSession(String username, String difficulty) {
+            return new QuizSession(username, difficulty, null);
+        }
+
+        @Override
+        public Object save(QuizSession session) throws SQLException {
+            // The stand-in writes synchronously, so submit and commit take the same time
+            long start = System.nanoTime();
+            session.finish();
+            query();
+            CommitTimer timer = commitTimer;
+            if (timer != null) {
+                timer.committed(session.getUsername(), System.nanoTime() - start);
+            }
+            return savedScores.incrementAndGet();
+        }
+
+        @Override
+        public void onCommit(CommitTimer timer) {
+            commitTimer = timer;
+        }
+
+        @Override
+        public void drain() {
+            // Saves are synchronous here
+        }
+
+        // Never keep the password itself, even for generated users
+        private static String digest(String password) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+                return Base64.getEncoder().encodeToString(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        private void query() throws SQLException {
+            try {
+                if (!connections.tryAcquire(5, TimeUnit.SECONDS)) {
+                    throw new SQLException("Timed out waiting for a stand-in connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a stand-in connection", e);
+            }
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+        }
+    }
+
+    /**
+     * Runs a load test configured with {@code -Dquiz.load.*} system properties.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException, SQLException {
+        String target = System.getProperty("quiz.load.target", "embedded");
+        Backend backend;
+        EmbeddedDatabase database = null;
+        if ("embedded".equalsIgnoreCase(target)) {
+            int questions = Integer.getInteger("quiz.load.questions", 3000);
+            database = new EmbeddedDatabase(Integer.getInteger("quiz.db.pool.maxSize", 10));
+            database.seed(questions, 0, 0, new Random(42));
+            backend = new DatabaseBackend("an embedded H2 database (" + questions + " questions)",
+                    database.getRepository(), Files.createTempDirectory("quiz-load-").resolve("pending-scores.log"), true);
+        } else if ("standin".equalsIgnoreCase(target)) {
+            backend = new StandInBackend();
+        } else if ("db".equalsIgnoreCase(target)) {
+            if (System.getProperty("quiz.db.url") == null) {
+                // Never fall back to the application's default database: this run writes users and scores
+                System.err.println("quiz.load.target=db needs -Dquiz.db.url pointing at a scratch database");
+                System.exit(2);
+                return;
+            }
+            String configured = System.getProperty("quiz.scores.journalFile");
+            Path journal = configured == null
+                    ? Files.createTempDirectory("quiz-load-").resolve("pending-scores.log") : Paths.get(configured);
+            if (ScoreSubmissionQueue.sharesJournal(journal, ScoreSubmissionQueue.applicationJournalFile())) {
+                // Its queue would adopt players' unsent scores, and leave load-test scores for the app to replay
+                System.err.println("quiz.scores.journalFile must not be the application's score journal: " + journal);
+                System.exit(2);
+                return;
+            }
+            backend = new DatabaseBackend("the database (" + System.getProperty("quiz.db.url") + ")",
+                    DatabaseConnection.getRepository(), journal, configured == null);
+        } else {
+            System.err.println("Unknown quiz.load.target: " + target + " (expected embedded, db or standin)");
+            System.exit(2);
+            return;
+        }
+        try {
+            new LoadGenerator(backend,
+                    Integer.getInteger("quiz.load.players", 100),
+                    Integer.getInteger("quiz.load.quizzes", 1),
+                    Long.getLong("quiz.load.thinkMs", 200L),
+                    System.getProperty("quiz.load.difficulty", "Easy")).run();
+        } finally {
+            if (database != null) {
+                database.close();
+            }
+        }
+    }
+}
@@ -3,7 +3,7 @@ package org.example;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Provides a professional login interface for the Quiz Application.
@@ -17,6 +17,7 @@ public class Login extends JFrame {
     private static final long serialVersionUID = 1L;
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginButton;
 
     // Modern color palette
     private static final Color BACKGROUND_COLOR = new Color(248, 249, 250);
@@ -31,10 +32,6 @@ public class Login extends JFrame {
     private static final int SHADOW_SIZE = 24;
     private static final Color SHADOW_COLOR = new Color(0, 0, 0, 50);
 
-    // Admin credentials
-    private static final String ADMIN_USER = "admin";
-    private static final String ADMIN_PASS = "admin";
-
     /**
      * Constructs the Login frame with professional UI components.
      */
@@ -109,7 +106,7 @@ public class Login extends JFrame {
         cardPanel.add(createFormField("Password", passwordField = createPasswordField()), gbc);
 
         // Login button
-        JButton loginButton = createPrimaryButton("Sign In");
+        loginButton = createPrimaryButton("Sign In");
         loginButton.addActionListener(e -> performLogin());
         gbc.gridy = 3;
         gbc.insets = new Insets(20, 0, 10, 0);
@@ -222,7 +219,7 @@ public class Login extends JFrame {
     }
 
     /**
-     * Performs user authentication against database or admin credentials.
+     * Authenticates against the users table and opens the screen for the user's role.
      */
     private void performLogin() {
         String username = usernameField.getText().trim();
@@ -233,35 +230,47 @@ public class Login extends JFrame {
             return;
         }
 
-        // Check admin credentials
-        if (ADMIN_USER.equals(username)) {
-            if (ADMIN_PASS.equals(password)) {
-                new AdminHome(username).setVisible(true);
-                dispose();
-                return;
+        // Check credentials in the background; password hashing is slow by design
+        loginButton.setEnabled(false);
+        new SwingWorker<QuizRepository.LoginResult, Void>() {
+            @Override
+            protected QuizRepository.LoginResult doInBackground() throws Exception {
+                return DatabaseConnection.getRepository().authenticate(username, password);
             }
-            showError("Invalid admin password");
-            return;
-        }
 
-        // Check regular user credentials
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, username);
-            stmt.setString(2, password);
-
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                new Home(username).setVisible(true);
-                dispose();
-            } else {
-                showError("Invalid username or password");
+            @Override
+            protected void done() {
+                loginButton.setEnabled(true);
+                try {
+                    QuizRepository.LoginResult result = get();
+                    switch (result.getStatus()) {
+                        case SUCCESS:
+                            // The role came back with the password, so routing needs no second lookup
+                            UserSession session = DatabaseConnection.getSessionStore()
+                                    .create(username, result.getCountry(), result.getRole());
+                            if (session.isStaff()) {
+                                new AdminHome(session).setVisible(true);
+                            } else {
+                                new Home(session).setVisible(true);
+                            }
+                            dispose();
+                            break;
+                        case THROTTLED:
+                            showError("Too many login attempts for this account.<br>Please wait a minute and try again.");
+                            break;
+                        case BUSY:
+                            showError("The server is busy. Please try again in a moment.");
+                            break;
+                        default:
+                            showError("Invalid username or password");
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    showError("Database error: " + cause.getMessage());
+                    cause.printStackTrace();
+                }
             }
-        } catch (Exception e) {
-            showError("Database error: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }.execute();
     }
 
     /**
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-username limit on login attempts, checked before any password hashing.
+ * Each username has a bucket of {@code quiz.auth.maxAttempts} (5) attempts that
+ * refills by one every {@code quiz.auth.attemptRefillMs} (60000); a successful
+ * login refills it at once. Buckets that have refilled completely carry no
+ * state and are dropped when more than {@code quiz.auth.maxTrackedUsers}
+ * (100000) names are tracked.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class LoginRateLimiter {
+    private static final int MAX_ATTEMPTS = Integer.getInteger("quiz.auth.maxAttempts", 5);
+    private static final long REFILL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("quiz.auth.attemptRefillMs", 60_000L));
+    private static final int MAX_TRACKED = Integer.getInteger("quiz.auth.maxTrackedUsers", 100_000);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Takes one attempt from a username's bucket.
+     *
+     * @return false if the username has no attempts left
+     */
+    boolean tryAcquire(String username) {
+        if (buckets.size() >= MAX_TRACKED) {
+            prune();
+        }
+        return buckets.computeIfAbsent(key(username), k -> new Bucket()).tryTake(System.nanoTime());
+    }
+
+    /**
+     * Refills a username's bucket after a successful login.
+     */
+    void reset(String username) {
+        buckets.remove(key(username));
+    }
+
+    private void prune() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        if (buckets.size() >= MAX_TRACKED) {
+            // Every tracked name is mid-lockout: too many names for per-name limits to mean much
+            System.err.println("Login rate limiter tracking " + buckets.size() + " usernames; resetting");
+            buckets.clear();
+        }
+    }
+
+    // MySQL compares usernames case-insensitively, so the limit does too
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Bucket {
+        private int attempts = MAX_ATTEMPTS;
+        private long refilledAt = System.nanoTime();
+
+        synchronized boolean tryTake(long now) {
+            refill(now);
+            if (attempts == 0) {
+                return false;
+            }
+            attempts--;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return attempts == MAX_ATTEMPTS;
+        }
+
+        private void refill(long now) {
+            long earned = (now - refilledAt) / REFILL_NANOS;
+            if (earned > 0) {
+                attempts = (int) Math.min(MAX_ATTEMPTS, attempts + earned);
+                refilledAt += earned * REFILL_NANOS;
+            }
+            if (attempts == MAX_ATTEMPTS) {
+                refilledAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Table model that loads rows lazily, one page at a time, on a background thread.
+ * Pages are requested as the {@link JTable} renders rows in its viewport and are
+ * read with keyset pagination: each loaded page records the sort key of its last
+ * row, so the next page is a cheap index range scan. A page with no known key
+ * before it is read with an OFFSET from the nearest known page boundary; the
+ * OFFSET is small when scrolling, but dragging the scrollbar far down can make
+ * it close to the row count for that one read, after which neighbouring pages
+ * are keyed again. Only a bounded LRU window of pages stays in memory; evicted
+ * pages are re-read by key when scrolled back to. A page that fails to load is
+ * retried the next time it is painted.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class PagedTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String LOADING = "Loading...";
+
+    /**
+     * Supplies rows in a fixed order. Implemented by {@link QuizRepository}.
+     */
+    public interface PageSource {
+        /** @return total number of rows */
+        int count() throws SQLException;
+
+        /**
+         * Reads rows after a sort key.
+         *
+         * @param afterKey Key of the last row before the page, or null to start at the top
+         * @param skip Rows to skip after {@code afterKey} (0 for pure keyset paging)
+         * @param limit Rows to return
+         * @return Rows; arrays may carry key columns after the displayed ones
+         */
+        List<Object[]> fetch(Object[] afterKey, int skip, int limit) throws SQLException;
+
+        /** @return sort key of a row returned by {@link #fetch} */
+        Object[] keyOf(Object[] row);
+    }
+
+    private final String[] columns;
+    private final PageSource source;
+    private final int pageSize;
+    private final int maxResidentPages;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quiz-table-page-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // All fields below are only touched on the EDT
+    private final Map<Integer, List<Object[]>> pages;
+    private final TreeMap<Integer, Object[]> pageStartKeys = new TreeMap<>(); // page -> key of the row before it
+    private final Set<Integer> inFlight = new HashSet<>();
+    private int rowCount;
+    private boolean disposed;
+    private boolean errorShown;
+
+    /**
+     * Creates the model and starts counting rows in the background.
+     *
+     * @param columns Column headers
+     * @param source Row supplier
+     * @param pageSize Rows per page
+     * @param maxResidentPages Pages kept in memory at once
+     */
+    public PagedTableModel(String[] columns, PageSource source, int pageSize, int maxResidentPages) {
+        this.columns = columns;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.maxResidentPages = maxResidentPages;
+        this.pages = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > PagedTableModel.this.maxResidentPages;
+            }
+        };
+        pageStartKeys.put(0, null);
+
+        loader.execute(() -> {
+            try {
+                int count = source.count();
+                SwingUtilities.invokeLater(() -> {
+                    if (!disposed) {
+                        rowCount = count;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (SQLException e) {
+                reportError(e);
+            }
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / pageSize;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return LOADING;
+        }
+        // Read ahead so smooth scrolling rarely shows placeholders
+        if (rowIndex % pageSize > pageSize / 2 && (page + 1) * pageSize < rowCount) {
+            requestPage(page + 1);
+        }
+        int offset = rowIndex % pageSize;
+        return offset < rows.size() ? rows.get(offset)[columnIndex] : null;
+    }
+
+    /**
+     * Stops the background loader. Call when the model is replaced.
+     */
+    public void dispose() {
+        disposed = true;
+        loader.shutdownNow();
+    }
+
+    private void requestPage(int page) {
+        if (disposed || pages.containsKey(page) || !inFlight.add(page)) {
+            return;
+        }
+        Map.Entry<Integer, Object[]> known = pageStartKeys.floorEntry(page);
+        int fromPage = known.getKey();
+        Object[] afterKey = known.getValue();
+        int skip = (page - fromPage) * pageSize;
+
+        loader.execute(() -> {
+            try {
+                List<Object[]> rows = source.fetch(afterKey, skip, pageSize);
+                SwingUtilities.invokeLater(() -> installPage(page, rows));
+            } catch (SQLException e) {
+                // No repaint is fired, so the retry waits for the user to scroll or resize
+                SwingUtilities.invokeLater(() -> inFlight.remove(page));
+                reportError(e);
+            }
+        });
+    }
+
+    private void installPage(int page, List<Object[]> rows) {
+        inFlight.remove(page);
+        if (disposed) {
+            return;
+        }
+        pages.put(page, rows);
+        if (rows.size() == pageSize) {
+            pageStartKeys.put(page + 1, source.keyOf(rows.get(rows.size() - 1)));
+        }
+        int first = page * pageSize;
+        int last = Math.min(first + pageSize, rowCount) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private void reportError(SQLException e) {
+        e.printStackTrace();
+        SwingUtilities.invokeLater(() -> {
+            if (!disposed && !errorShown) {
+                errorShown = true; // one dialog per model, not one per failed page
+                JOptionPane.showMessageDialog(null, "Error loading rows: " + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+}
@@ -0,0 +1,191 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 password hashing. Hashes are stored as
+ * {@code pbkdf2-sha256$iterations$salt$hash} (Base64 salt and hash), so the
+ * work factor can be raised without invalidating existing hashes: a hash made
+ * with fewer iterations still verifies and {@link #needsRehash(String)} asks
+ * for it to be replaced.
+ * <p>
+ * Hashing is deliberately slow, so it runs on a small dedicated pool with a
+ * bounded queue rather than on the caller's thread. A login storm then costs
+ * at most {@code quiz.auth.threads} cores, and requests beyond the queue are
+ * turned away at once with {@link RejectedExecutionException} instead of
+ * piling up behind the EDT or the threads holding database connections.
+ * <p>
+ * Settings: {@code quiz.auth.iterations} (310000), {@code quiz.auth.threads}
+ * (half the processors), {@code quiz.auth.queueCapacity} (64) and
+ * {@code quiz.auth.timeoutMs} (10000).
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final int ITERATIONS = Integer.getInteger("quiz.auth.iterations", 310_000);
+    private static final int THREADS = Integer.getInteger("quiz.auth.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_CAPACITY = Integer.getInteger("quiz.auth.queueCapacity", 64);
+    private static final long TIMEOUT_MS = Long.getLong("quiz.auth.timeoutMs", 10_000L);
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong hashes = new AtomicLong();
+
+    PasswordHasher() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Threads start on first use, so an unused hasher costs nothing
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "quiz-password-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Hashes a password with a fresh salt at the configured work factor.
+     *
+     * @return The encoded hash, to be stored as is
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = run(() -> pbkdf2(password, salt, ITERATIONS));
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + ITERATIONS + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value. Values not in the hash format are
+     * passwords stored before hashing was introduced and are compared as they are.
+     *
+     * @param password Password entered by the player
+     * @param stored Value from {@code users.password}
+     * @return true if the password matches
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public boolean verify(String password, String stored) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        int iterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            iterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Malformed password hash: " + e.getMessage());
+            return false;
+        }
+        byte[] actual = run(() -> pbkdf2(password, salt, iterations));
+        return MessageDigest.isEqual(actual, expected);
+    }
+
+    /**
+     * @return true if a stored value is a legacy plain password or was hashed with
+     *         a different work factor, and should be replaced after a successful login
+     */
+    public boolean needsRehash(String stored) {
+        return !stored.startsWith(PREFIX + "$" + ITERATIONS + "$");
+    }
+
+    /** @return hashing requests waiting for a worker */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /** @return workers hashing right now */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /** @return hashes computed since startup */
+    public long getHashCount() {
+        return hashes.get();
+    }
+
+    /** @return requests turned away because the queue was full */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /** @return mean time to compute one hash, in milliseconds */
+    public double getAverageHashMillis() {
+        long count = hashes.get();
+        return count == 0 ? 0 : hashNanos.get() / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("password hashing: %d hash(es), %.1f ms avg, %d queued, %d active, %d rejected",
+                getHashCount(), getAverageHashMillis(), getQueueDepth(), getActiveCount(), getRejectedCount());
+    }
+
+    /**
+     * Runs a hash on the pool and waits for it.
+     */
+    private byte[] run(Callable<byte[]> task) {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+            hashNanos.addAndGet(System.nanoTime() - start);
+            hashes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of the question bank, partitioned by difficulty.
+ * Partitions are immutable snapshots that readers use without locking;
+ * admin writes made through {@link QuizRepository} patch them in place of
+ * a reload, and a TTL picks up changes made outside the application.
+ * <p>
+ * Each difficulty is loaded by one thread at a time and never under the
+ * cache's lock, so a load holds up only the readers that have nothing to
+ * serve. An expired partition keeps being served while a background thread
+ * reloads it. A load that overlaps an admin change is handed to its waiting
+ * callers but not cached, since it may have read the rows before the change.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+class QuestionCache {
+    private static final long TTL_MS = Long.getLong("quiz.cache.ttlMs", TimeUnit.MINUTES.toMillis(5));
+
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quiz-question-cache");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final QuizRepository repository;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Partition>> loads = new HashMap<>(); // guarded by this
+    private long version; // guarded by this; bumped by every change to the cached partitions
+
+    QuestionCache(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Gets the cached questions for a difficulty. A missing partition is loaded,
+     * or waited for if another thread is loading it; an expired one is returned
+     * as is and reloaded in the background.
+     *
+     * @param difficulty Difficulty level
+     * @return Snapshot of the partition
+     * @throws SQLException if the partition had to be loaded and the query failed
+     */
+    Partition get(String difficulty) throws SQLException {
+        Partition partition = partitions.get(difficulty);
+        if (partition != null && !partition.isExpired()) {
+            return partition;
+        }
+        CompletableFuture<Partition> load;
+        boolean start = false;
+        long startVersion = 0;
+        synchronized (this) {
+            partition = partitions.get(difficulty);
+            if (partition != null && !partition.isExpired()) {
+                return partition;
+            }
+            load = loads.get(difficulty);
+            if (load == null) {
+                load = new CompletableFuture<>();
+                loads.put(difficulty, load);
+                start = true;
+                startVersion = version;
+            }
+        }
+        if (partition != null) {
+            if (start) {
+                CompletableFuture<Partition> refresh = load;
+                long refreshVersion = startVersion;
+                REFRESHER.execute(() -> load(difficulty, refresh, refreshVersion));
+            }
+            return partition;
+        }
+        if (start) {
+            load(difficulty, load, startVersion);
+        }
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Could not load " + difficulty + " questions", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for " + difficulty + " questions", e);
+        }
+    }
+
+    private void load(String difficulty, CompletableFuture<Partition> load, long startVersion) {
+        try {
+            Partition loaded = repository.loadPartition(difficulty);
+            synchronized (this) {
+                if (version == startVersion) {
+                    partitions.put(difficulty, loaded);
+                }
+                loads.remove(difficulty, load);
+            }
+            load.complete(loaded);
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                loads.remove(difficulty, load);
+            }
+            if (partitions.containsKey(difficulty)) {
+                // Background refresh: the expired snapshot stays in use and the next read retries
+                System.err.println("Could not reload " + difficulty + " questions: " + e.getMessage());
+            }
+            load.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Adds a newly inserted question to its partition, if that partition is cached
+     * and does not already hold it from a reload that read the new row.
+     */
+    synchronized void added(int id, String difficulty, Game.Question question) {
+        version++;
+        Partition partition = partitions.get(difficulty);
+        if (partition != null && partition.indexOf(id) < 0) {
+            partitions.put(difficulty, partition.with(id, question));
+        }
+    }
+
+    /**
+     * Removes a deleted question from whichever partition holds it.
+     */
+    synchronized void removed(int id) {
+        version++;
+        for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+            int position = entry.getValue().indexOf(id);
+            if (position >= 0) {
+                entry.setValue(entry.getValue().without(position));
+            }
+        }
+    }
+
+    /**
+     * Moves a question to another difficulty. If the question is not cached
+     * under its old difficulty the target partition is dropped instead.
+     */
+    synchronized void moved(int id, String newDifficulty) {
+        version++;
+        Game.Question question = null;
+        for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+            int position = entry.getValue().indexOf(id);
+            if (position >= 0) {
+                question = entry.getValue().question(position);
+                entry.setValue(entry.getValue().without(position));
+            }
+        }
+        Partition target = partitions.get(newDifficulty);
+        if (target != null && target.indexOf(id) < 0) {
+            if (question != null) {
+                partitions.put(newDifficulty, target.with(id, question));
+            } else {
+                partitions.remove(newDifficulty);
+            }
+        }
+    }
+
+    /**
+     * Drops a single partition so it is reloaded on next use. A reload already
+     * under way is not cached, rather than putting back rows read before the change.
+     */
+    synchronized void invalidate(String difficulty) {
+        version++;
+        partitions.remove(difficulty);
+    }
+
+    /**
+     * Drops every partition; reloads under way are not cached.
+     */
+    synchronized void invalidateAll() {
+        version++;
+        partitions.clear();
+    }
+
+    /**
+     * Immutable snapshot of one difficulty: question ids and a compact
+     * {@link QuestionStore}, where position i holds the question with ids[i].
+     */
+    static class Partition {
+        final int[] ids;
+        final QuestionStore store;
+        private final long loadedAt;
+
+        Partition(int[] ids, QuestionStore store) {
+            this(ids, store, System.currentTimeMillis());
+        }
+
+        private Partition(int[] ids, QuestionStore store, long loadedAt) {
+            this.ids = ids;
+            this.store = store;
+            this.loadedAt = loadedAt;
+        }
+
+        /** Decodes the question at a position. */
+        Game.Question question(int position) {
+            return store.question(position);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > TTL_MS;
+        }
+
+        int indexOf(int id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Partition with(int id, Game.Question question) {
+            int[] newIds = Arrays.copyOf(ids, ids.length + 1);
+            newIds[ids.length] = id;
+            return new Partition(newIds, store.with(question), loadedAt);
+        }
+
+        Partition without(int position) {
+            // Swap the last entry into the hole; order within a partition does not matter
+            int last = ids.length - 1;
+            int[] newIds = Arrays.copyOf(ids, last);
+            if (position < last) {
+                newIds[position] = ids[last];
+            }
+            return new Partition(newIds, store.without(position), loadedAt);
+        }
+    }
+}
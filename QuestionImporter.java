@@ -0,0 +1,611 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Bulk question import from CSV or JSON files. Files are parsed one row at a
+ * time, each row is checked against the same rules as the admin's Add
+ * Question dialog, and valid rows are inserted in JDBC batches, one
+ * transaction per chunk. Invalid rows are reported with their row number
+ * and skipped. If the database still rejects a chunk for its data, the
+ * chunk's rows are inserted one at a time so only the offending rows are
+ * reported; chunks committed before any other failure stay imported.
+ * <p>
+ * CSV files need a header row; JSON files hold an array of flat objects.
+ * Column names (case-insensitive): {@code question}, {@code optionA} to
+ * {@code optionD}, {@code difficulty}, and either {@code correctOption}
+ * (A-D or 0-3) or {@code correctAnswer} (the text of the correct option).
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class QuestionImporter {
+    /** Difficulty levels a question may have, as offered by the admin dialogs. */
+    public static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+    private static final int CHUNK_SIZE = Integer.getInteger("quiz.import.chunkSize", 1000);
+    private static final int PROGRESS_EVERY_ROWS = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    /** Width of the {@code questions.question} column, in characters. */
+    public static final int MAX_QUESTION_LENGTH = 1000;
+    /** Width of the {@code questions.optionA} to {@code optionD} columns, in characters. */
+    public static final int MAX_OPTION_LENGTH = 255;
+
+    private final QuizRepository repository;
+
+    public QuestionImporter(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Checks a question against the rules of the Add Question dialog.
+     *
+     * @return null if the question is valid, otherwise the reason it is not
+     */
+    public static String validate(String question, String optionA, String optionB, String optionC, String optionD,
+                                  int correctOption, String difficulty) {
+        if (isBlank(question) || isBlank(optionA) || isBlank(optionB) || isBlank(optionC) || isBlank(optionD)
+                || isBlank(difficulty)) {
+            return "All fields are required to add a question.";
+        }
+        if (correctOption < 0 || correctOption >= Game.Question.OPTION_COUNT) {
+            return "The correct answer must be one of the four options.";
+        }
+        if (length(question) > MAX_QUESTION_LENGTH) {
+            return "The question must be at most " + MAX_QUESTION_LENGTH + " characters.";
+        }
+        String[] options = {optionA, optionB, optionC, optionD};
+        for (int i = 0; i < options.length; i++) {
+            if (length(options[i]) > MAX_OPTION_LENGTH) {
+                return "Option " + (char) ('A' + i) + " must be at most " + MAX_OPTION_LENGTH + " characters.";
+            }
+        }
+        if (canonicalDifficulty(difficulty) == null) {
+            return "Difficulty must be one of Easy, Medium or Hard.";
+        }
+        return null;
+    }
+
+    /**
+     * Imports a file; the format is chosen by extension ({@code .json}, otherwise CSV).
+     *
+     * @param file File to import
+     * @param progress Receives progress every few hundred rows; called on the importing thread
+     * @param cancelled Polled between rows; the import stops after the current chunk once it returns true
+     * @return Outcome of the import
+     * @throws IOException if the file cannot be read or is malformed beyond a single row
+     * @throws SQLException if a chunk cannot be written for a reason other than its rows' values;
+     *         earlier chunks stay committed
+     */
+    public Result importFile(Path file, Consumer<Progress> progress, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        long totalBytes = Files.size(file);
+        try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(file));
+             Reader reader = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8))) {
+            RowSource rows = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")
+                    ? new JsonRows(reader) : new CsvRows(reader);
+            Result result = new Result();
+            List<Game.Question> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<String> chunkDifficulties = new ArrayList<>(CHUNK_SIZE);
+            List<Integer> chunkRows = new ArrayList<>(CHUNK_SIZE);
+
+            Map<String, String> row;
+            while (!cancelled.getAsBoolean() && (row = rows.next()) != null) {
+                result.rowsRead++;
+                int rowNumber = rows.rowNumber();
+                String problem = addRow(row, chunk, chunkDifficulties);
+                if (problem != null) {
+                    result.error(rowNumber, problem);
+                } else {
+                    chunkRows.add(rowNumber);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    insert(chunk, chunkDifficulties, chunkRows, result);
+                    chunk.clear();
+                    chunkDifficulties.clear();
+                    chunkRows.clear();
+                }
+                if (result.rowsRead % PROGRESS_EVERY_ROWS == 0) {
+                    progress.accept(new Progress(counted.count, totalBytes, result));
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insert(chunk, chunkDifficulties, chunkRows, result);
+            }
+            result.cancelled = cancelled.getAsBoolean();
+            progress.accept(new Progress(counted.count, totalBytes, result));
+            return result;
+        }
+    }
+
+    /**
+     * Inserts a chunk in one transaction. If the database rejects it for its
+     * data, retries row by row and reports the rows it still rejects.
+     *
+     * @throws SQLException if a write fails for any other reason
+     */
+    private void insert(List<Game.Question> chunk, List<String> difficulties, List<Integer> rows, Result result)
+            throws SQLException {
+        try {
+            result.imported += repository.addQuestions(chunk, difficulties);
+        } catch (SQLException e) {
+            if (!QuizRepository.isDataError(e)) {
+                throw e;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    result.imported += repository.addQuestions(List.of(chunk.get(i)), List.of(difficulties.get(i)));
+                } catch (SQLException rowFailure) {
+                    if (!QuizRepository.isDataError(rowFailure)) {
+                        throw rowFailure;
+                    }
+                    result.error(rows.get(i), "Rejected by the database: " + rowFailure.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates a parsed row and, if it is valid, adds it to the chunk.
+     *
+     * @return null if the row was added, otherwise the reason it was rejected
+     */
+    private static String addRow(Map<String, String> row, List<Game.Question> chunk, List<String> difficulties) {
+        String question = trim(row.get("question"));
+        String optionA = trim(row.get("optiona"));
+        String optionB = trim(row.get("optionb"));
+        String optionC = trim(row.get("optionc"));
+        String optionD = trim(row.get("optiond"));
+        String difficulty = trim(row.get("difficulty"));
+
+        int correctOption;
+        String key = trim(row.get("correctoption"));
+        if (!isBlank(key)) {
+            correctOption = parseOption(key);
+            if (correctOption < 0) {
+                return "correctOption must be A-D or 0-3, got '" + key + "'";
+            }
+        } else {
+            Game.Question byText = new Game.Question(question, optionA, optionB, optionC, optionD,
+                    trim(row.get("correctanswer")));
+            correctOption = byText.getCorrectOption();
+        }
+
+        String problem = validate(question, optionA, optionB, optionC, optionD, correctOption, difficulty);
+        if (problem != null) {
+            return problem;
+        }
+        chunk.add(new Game.Question(question, optionA, optionB, optionC, optionD, correctOption));
+        difficulties.add(canonicalDifficulty(difficulty));
+        return null;
+    }
+
+    private static int parseOption(String key) {
+        if (key.length() == 1) {
+            char c = Character.toUpperCase(key.charAt(0));
+            if (c >= 'A' && c <= 'D') {
+                return c - 'A';
+            }
+            if (c >= '0' && c <= '3') {
+                return c - '0';
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the matching entry of {@link #DIFFICULTIES}, ignoring case, or null if none matches
+     */
+    static String canonicalDifficulty(String difficulty) {
+        for (String known : DIFFICULTIES) {
+            if (known.equalsIgnoreCase(difficulty)) {
+                return known;
+            }
+        }
+        return null;
+    }
+
+    // Characters as MySQL counts them for VARCHAR widths: code points, not UTF-16 units
+    private static int length(String value) {
+        return value.codePointCount(0, value.length());
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * Snapshot of an import in progress.
+     */
+    public static class Progress {
+        private final long bytesRead;
+        private final long totalBytes;
+        private final int rowsRead;
+        private final int imported;
+        private final int errors;
+
+        Progress(long bytesRead, long totalBytes, Result result) {
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+            this.rowsRead = result.rowsRead;
+            this.imported = result.imported;
+            this.errors = result.errorCount;
+        }
+
+        /** @return share of the file read so far, from 0 to 100 */
+        public int getPercent() {
+            return totalBytes == 0 ? 100 : (int) Math.min(100, bytesRead * 100 / totalBytes);
+        }
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        public int getErrors() { return errors; }
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public static class Result {
+        private int rowsRead;
+        private int imported;
+        private int errorCount;
+        private boolean cancelled;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void error(int row, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        /** @return number of rejected rows, including any beyond those kept in {@link #getErrors()} */
+        public int getErrorCount() { return errorCount; }
+        public boolean isCancelled() { return cancelled; }
+        /** @return the first rejected rows, at most 1000 */
+        public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+    }
+
+    /**
+     * A rejected row.
+     */
+    public static class RowError {
+        private final int row;
+        private final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        /** @return 1-based data row number, not counting a CSV header */
+        public int getRow() { return row; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Row " + row + ": " + message;
+        }
+    }
+
+    /**
+     * Rows of a file as column name (lower case) to value.
+     */
+    private interface RowSource {
+        /** @return the next row, or null at the end of the file */
+        Map<String, String> next() throws IOException;
+
+        /** @return number of the row last returned */
+        int rowNumber();
+    }
+
+    /**
+     * RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks.
+     */
+    private static class CsvRows implements RowSource {
+        private final Reader in;
+        private final List<String> header;
+        private int row;
+        private int pending = -2; // one character of lookahead; -2 = none
+
+        CsvRows(Reader in) throws IOException {
+            this.in = in;
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IOException("The CSV file is empty");
+            }
+            header = new ArrayList<>(names.size());
+            for (String name : names) {
+                header.add(name.trim().toLowerCase(Locale.ROOT).replace("\uFEFF", ""));
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isEmpty()); // skip blank lines
+            if (fields == null) {
+                return null;
+            }
+            row++;
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return values;
+        }
+
+        @Override
+        public int rowNumber() {
+            return row;
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field in CSV row " + (row + 1));
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pending = next;
+                        }
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return in.read();
+        }
+    }
+
+    /**
+     * A JSON array of flat objects whose values are strings, numbers, booleans or null.
+     */
+    private static class JsonRows implements RowSource {
+        private final Reader in;
+        private int row;
+        private int pending = -2;
+        private boolean started;
+        private boolean finished;
+
+        JsonRows(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            int c = skipWhitespace();
+            if (!started) {
+                if (c != '[') {
+                    throw error("Expected a JSON array of questions");
+                }
+                started = true;
+                c = skipWhitespace();
+                if (c == ']') {
+                    finished = true;
+                    return null;
+                }
+            } else if (c == ']') {
+                finished = true;
+                return null;
+            } else if (c == ',') {
+                c = skipWhitespace();
+            } else {
+                throw error("Expected ',' or ']' after a question");
+            }
+            if (c != '{') {
+                throw error("Expected a question object");
+            }
+            row++;
+            return readObject();
+        }
+
+        @Override
+        public int rowNumber() {
+            return row;
+        }
+
+        private Map<String, String> readObject() throws IOException {
+            Map<String, String> values = new HashMap<>();
+            int c = skipWhitespace();
+            if (c == '}') {
+                return values;
+            }
+            while (true) {
+                if (c != '"') {
+                    throw error("Expected a field name");
+                }
+                String name = readString().toLowerCase(Locale.ROOT);
+                if (skipWhitespace() != ':') {
+                    throw error("Expected ':' after \"" + name + "\"");
+                }
+                values.put(name, readScalar());
+                c = skipWhitespace();
+                if (c == '}') {
+                    return values;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}' in a question object");
+                }
+                c = skipWhitespace();
+            }
+        }
+
+        private String readScalar() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            }
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                literal.append((char) c);
+                c = read();
+            }
+            pending = c;
+            String text = literal.toString();
+            if (text.isEmpty()) {
+                throw error("Expected a value");
+            }
+            return "null".equals(text) ? null : text;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw error("Unterminated string");
+                }
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c == '\\') {
+                    int escaped = read();
+                    switch (escaped) {
+                        case 'n': text.append('\n'); break;
+                        case 't': text.append('\t'); break;
+                        case 'r': text.append('\r'); break;
+                        case 'b': text.append('\b'); break;
+                        case 'f': text.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                hex[i] = (char) read();
+                            }
+                            try {
+                                text.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw error("Bad \\u escape");
+                            }
+                            break;
+                        case -1: throw error("Unterminated string");
+                        default: text.append((char) escaped); // \" \\ \/
+                    }
+                } else {
+                    text.append((char) c);
+                }
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && (Character.isWhitespace(c) || c == '\uFEFF'));
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " (near question " + Math.max(row, 1) + ")");
+        }
+    }
+
+    /**
+     * Counts bytes read, for progress against the file size.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads quiz questions on a background thread so the Event Dispatch Thread
+ * never waits on the database. Screens that know a quiz is about to start
+ * can {@link #prefetch(String)} a difficulty; {@link Game} then picks up the
+ * already-running or finished load instead of starting its own. When the
+ * database cannot be reached, questions come from the offline
+ * {@link QuestionPack} if one has been exported. Kiosks that ship a pack can
+ * set {@code -Dquiz.pack.preferred=true} to read it first, so a quiz starts
+ * without waiting on the database; the database is then only queried for a
+ * difficulty the pack does not have.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class QuestionLoader {
+    /** Number of questions in one quiz round. */
+    public static final int QUESTIONS_PER_QUIZ = 10;
+
+    private static final boolean PACK_PREFERRED = Boolean.getBoolean("quiz.pack.preferred");
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "quiz-question-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Map<String, CompletableFuture<List<Game.Question>>> PREFETCHED = new ConcurrentHashMap<>();
+
+    private QuestionLoader() {} // Static utility
+
+    /**
+     * Starts loading a fresh set of questions for a difficulty, replacing any earlier prefetch.
+     *
+     * @param difficulty Difficulty level that may be played next
+     */
+    public static void prefetch(String difficulty) {
+        PREFETCHED.put(difficulty, load(difficulty));
+    }
+
+    /**
+     * Takes the prefetched questions for a difficulty, or starts loading them now.
+     * The future completes off the EDT; callers must hop back with
+     * {@link javax.swing.SwingUtilities#invokeLater(Runnable)} before touching components.
+     *
+     * @param difficulty Difficulty level to play
+     * @return Future completing with the questions, or exceptionally with the database error
+     */
+    public static CompletableFuture<List<Game.Question>> take(String difficulty) {
+        CompletableFuture<List<Game.Question>> future = PREFETCHED.remove(difficulty);
+        if (future == null || future.isCompletedExceptionally()) {
+            future = load(difficulty);
+        }
+        return future;
+    }
+
+    private static CompletableFuture<List<Game.Question>> load(String difficulty) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (PACK_PREFERRED) {
+                List<Game.Question> offline = loadOffline(difficulty);
+                if (offline != null) {
+                    return offline;
+                }
+            }
+            try {
+                return DatabaseConnection.getRepository().fetchRandomQuestions(difficulty, QUESTIONS_PER_QUIZ);
+            } catch (Exception e) {
+                List<Game.Question> offline = loadOffline(difficulty);
+                if (offline != null) {
+                    System.err.println("Database unavailable (" + e.getMessage() + "); using the offline question pack");
+                    return offline;
+                }
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * @return questions from the offline pack, or null if there is no usable pack for the difficulty
+     */
+    private static List<Game.Question> loadOffline(String difficulty) {
+        try {
+            QuestionPack pack = QuestionPack.openDefault();
+            if (pack != null && pack.count(difficulty) > 0) {
+                return pack.sample(difficulty, QUESTIONS_PER_QUIZ);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unusable pack: the caller carries on as if there were none
+            System.err.println("Could not read the offline question pack: " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,353 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline question pack: a versioned binary snapshot of the {@code questions}
+ * table, read through a memory-mapped file so any question can be decoded by
+ * number without loading the rest. {@link QuestionLoader} falls back to the
+ * pack when the database is unreachable, and with {@code -Dquiz.pack.preferred=true}
+ * (for kiosks) reads it first and only queries the database for a difficulty
+ * the pack lacks. Every offset in the file is checked when it is opened, so a
+ * truncated or corrupt pack is rejected up front instead of failing mid-quiz.
+ * <p>
+ * Layout (version 1, big-endian):
+ * <pre>
+ * header   int magic 'QZPK', int version, int questionCount, int difficultyCount,
+ *          int recordsOffset, int indexOffset, int textOffset, int textLength
+ * records  questionCount x 44 bytes: 5 x (int start, int length) of the question
+ *          text and options A-D within the text section, byte correctOption, 3 bytes padding
+ * index    difficultyCount x (short nameLength, UTF-8 name, int count, int[count] question numbers)
+ * text     UTF-8 strings, each distinct string stored once
+ * </pre>
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class QuestionPack {
+    private static final int MAGIC = 0x515A504B; // "QZPK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = QuestionStore.FIELDS * 8 + 4;
+
+    private static final Object DEFAULT_LOCK = new Object();
+    private static QuestionPack defaultPack;
+    private static long defaultPackModified;
+
+    private final ByteBuffer buffer;
+    private final int questionCount;
+    private final int recordsOffset;
+    private final int textOffset;
+    private final Map<String, IntBuffer> byDifficulty;
+
+    private QuestionPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a question pack");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported question pack version " + version);
+        }
+        questionCount = buffer.getInt(8);
+        int difficultyCount = buffer.getInt(12);
+        recordsOffset = buffer.getInt(16);
+        int indexOffset = buffer.getInt(20);
+        textOffset = buffer.getInt(24);
+        int textLength = buffer.getInt(28);
+        if (questionCount < 0 || difficultyCount < 0 || textLength < 0 || recordsOffset < HEADER_BYTES
+                || recordsOffset + (long) questionCount * RECORD_BYTES > indexOffset
+                || indexOffset > textOffset || textOffset + (long) textLength > buffer.capacity()) {
+            throw new IOException("Corrupt question pack header");
+        }
+
+        for (int number = 0; number < questionCount; number++) {
+            int record = recordsOffset + number * RECORD_BYTES;
+            for (int field = 0; field < QuestionStore.FIELDS; field++) {
+                int start = buffer.getInt(record + field * 8);
+                int length = buffer.getInt(record + field * 8 + 4);
+                if (start < 0 || length < 0 || (long) start + length > textLength) {
+                    throw new IOException("Corrupt question pack record " + number);
+                }
+            }
+            int correctOption = buffer.get(record + QuestionStore.FIELDS * 8);
+            if (correctOption < -1 || correctOption >= Game.Question.OPTION_COUNT) {
+                throw new IOException("Corrupt question pack record " + number);
+            }
+        }
+
+        Map<String, IntBuffer> index = new LinkedHashMap<>();
+        int position = indexOffset;
+        for (int i = 0; i < difficultyCount; i++) {
+            if (position + 2L > textOffset) {
+                throw new IOException("Corrupt question pack index");
+            }
+            int nameLength = buffer.getShort(position) & 0xFFFF; // Written as an unsigned length
+            if (position + 6L + nameLength > textOffset) {
+                throw new IOException("Corrupt question pack index");
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(position + 2, name);
+            position += 2 + nameLength;
+            int count = buffer.getInt(position);
+            position += 4;
+            if (count < 0 || position + 4L * count > textOffset) {
+                throw new IOException("Corrupt question pack index");
+            }
+            // A view onto the mapped index, not a copy
+            IntBuffer numbers = buffer.slice(position, 4 * count).asIntBuffer();
+            for (int j = 0; j < count; j++) {
+                if (numbers.get(j) < 0 || numbers.get(j) >= questionCount) {
+                    throw new IOException("Corrupt question pack index");
+                }
+            }
+            index.put(new String(name, StandardCharsets.UTF_8), numbers);
+            position += 4 * count;
+        }
+        byDifficulty = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Maps a pack file read-only. The mapping stays valid after this returns and is
+     * released when the pack is garbage collected.
+     *
+     * @param file Pack file
+     * @return The opened pack
+     * @throws IOException if the file cannot be read or is not a valid pack
+     */
+    public static QuestionPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Question pack too large: " + file);
+            }
+            return new QuestionPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Default pack location, overridable with {@code -Dquiz.pack.file}.
+     */
+    public static Path defaultFile() {
+        String configured = System.getProperty("quiz.pack.file");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".quiz-game", "questions.qpack");
+    }
+
+    /**
+     * Opens the pack at {@link #defaultFile()}, reusing the mapping until the file changes.
+     *
+     * @return The pack, or null if there is none
+     * @throws IOException if the file exists but cannot be read
+     */
+    static QuestionPack openDefault() throws IOException {
+        Path file = defaultFile();
+        synchronized (DEFAULT_LOCK) {
+            if (!Files.isRegularFile(file)) {
+                defaultPack = null;
+                return null;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (defaultPack == null || modified != defaultPackModified) {
+                defaultPack = open(file);
+                defaultPackModified = modified;
+            }
+            return defaultPack;
+        }
+    }
+
+    /** @return number of questions in the pack */
+    public int size() {
+        return questionCount;
+    }
+
+    /** @return difficulty levels with an index section */
+    public Set<String> getDifficulties() {
+        return byDifficulty.keySet();
+    }
+
+    /** @return number of questions of a difficulty level */
+    public int count(String difficulty) {
+        IntBuffer index = byDifficulty.get(difficulty);
+        return index == null ? 0 : index.limit();
+    }
+
+    /**
+     * Decodes one question.
+     *
+     * @param number Question number, from 0 to {@link #size()} - 1
+     */
+    public Game.Question question(int number) {
+        if (number < 0 || number >= questionCount) {
+            throw new IndexOutOfBoundsException("Question " + number + " of " + questionCount);
+        }
+        int record = recordsOffset + number * RECORD_BYTES;
+        String[] text = new String[QuestionStore.FIELDS];
+        for (int field = 0; field < text.length; field++) {
+            int start = buffer.getInt(record + field * 8);
+            int length = buffer.getInt(record + field * 8 + 4);
+            byte[] bytes = new byte[length];
+            buffer.get(textOffset + start, bytes);
+            text[field] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int correctOption = buffer.get(record + QuestionStore.FIELDS * 8);
+        return new Game.Question(text[0], text[1], text[2], text[3], text[4], correctOption);
+    }
+
+    /**
+     * Draws distinct random questions of a difficulty, decoding only the ones drawn.
+     *
+     * @param difficulty Difficulty level
+     * @param count Number of questions wanted
+     * @return Questions in random order; fewer than {@code count} if the pack has fewer
+     */
+    public List<Game.Question> sample(String difficulty, int count) {
+        IntBuffer index = byDifficulty.get(difficulty);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        List<Game.Question> questions = new ArrayList<>(Math.min(count, index.limit()));
+        for (int position : QuestionSampler.pickPositions(index.limit(), count)) {
+            questions.add(question(index.get(position)));
+        }
+        Collections.shuffle(questions);
+        return questions;
+    }
+
+    /**
+     * Writes every question in the database to a pack file. The file is replaced
+     * atomically, so readers never see a half-written pack.
+     *
+     * @param repository Source of the questions
+     * @param file Pack file to create or replace
+     * @return Number of questions written
+     * @throws SQLException if reading the questions fails
+     * @throws IOException if writing the file fails
+     */
+    public static int export(QuizRepository repository, Path file) throws SQLException, IOException {
+        PackWriter writer = new PackWriter();
+        repository.forEachQuestion(writer::add);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            writer.writeTo(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return writer.size();
+    }
+
+    /**
+     * Collects questions in memory, then writes the sections in order.
+     */
+    private static class PackWriter {
+        private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+        private final Map<String, long[]> interned = new HashMap<>(); // string -> {start, length}
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream recordOut = new DataOutputStream(records);
+        private final Map<String, List<Integer>> byDifficulty = new LinkedHashMap<>();
+        private int size;
+
+        void add(String difficulty, Game.Question question) {
+            try {
+                for (int field = 0; field < QuestionStore.FIELDS; field++) {
+                    long[] span = intern(field == 0 ? question.getQuestion() : question.getOption(field - 1));
+                    recordOut.writeInt((int) span[0]);
+                    recordOut.writeInt((int) span[1]);
+                }
+                recordOut.writeByte(question.getCorrectOption());
+                recordOut.write(new byte[3]);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // Cannot happen writing to memory
+            }
+            byDifficulty.computeIfAbsent(difficulty == null ? "" : difficulty, d -> new ArrayList<>()).add(size++);
+        }
+
+        int size() {
+            return size;
+        }
+
+        private long[] intern(String value) {
+            String key = value == null ? "" : value;
+            return interned.computeIfAbsent(key, k -> {
+                byte[] bytes = k.getBytes(StandardCharsets.UTF_8);
+                long[] span = {text.size(), bytes.length};
+                text.write(bytes, 0, bytes.length);
+                return span;
+            });
+        }
+
+        void writeTo(Path file) throws IOException {
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream indexOut = new DataOutputStream(index);
+            for (Map.Entry<String, List<Integer>> entry : byDifficulty.entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                indexOut.writeShort(name.length);
+                indexOut.write(name);
+                indexOut.writeInt(entry.getValue().size());
+                for (int number : entry.getValue()) {
+                    indexOut.writeInt(number);
+                }
+            }
+
+            long total = (long) HEADER_BYTES + records.size() + index.size() + text.size();
+            if (total > Integer.MAX_VALUE) {
+                throw new IOException("Question bank too large for a single pack");
+            }
+            int indexOffset = HEADER_BYTES + records.size();
+            int textOffset = indexOffset + index.size();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(size);
+                out.writeInt(byDifficulty.size());
+                out.writeInt(HEADER_BYTES);
+                out.writeInt(indexOffset);
+                out.writeInt(textOffset);
+                out.writeInt(text.size());
+                records.writeTo(out);
+                index.writeTo(out);
+                text.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Exports the database's questions to a pack file: the first argument, or the default location.
+     */
+    public static void main(String[] args) {
+        Path file = args.length > 0 ? Paths.get(args[0]) : defaultFile();
+        try {
+            int written = export(DatabaseConnection.getRepository(), file);
+            System.out.println("Wrote " + written + " question(s) to " + file);
+        } catch (SQLException | IOException e) {
+            System.err.println("Could not export question pack: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
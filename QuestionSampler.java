@@ -0,0 +1,60 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks random questions without asking MySQL to sort the whole bank.
+ * Draws distinct positions from the cached partition of a difficulty in
+ * {@link QuestionCache}, so the per-quiz cost depends on the number of
+ * questions drawn, not the bank size, and needs no database round trip
+ * while the partition is cached.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.1
+ * @since 2024
+ */
+class QuestionSampler {
+    private final QuestionCache cache;
+
+    QuestionSampler(QuestionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Draws up to {@code count} distinct random questions for a difficulty.
+     *
+     * @param difficulty Difficulty level to sample from
+     * @param count Number of questions wanted
+     * @return Questions in random order; fewer than {@code count} if the bank is smaller
+     * @throws SQLException if the partition had to be loaded and the query failed
+     */
+    List<Game.Question> sample(String difficulty, int count) throws SQLException {
+        QuestionCache.Partition partition = cache.get(difficulty);
+        List<Game.Question> questions = new ArrayList<>(Math.min(count, partition.size()));
+        for (int position : pickPositions(partition.size(), count)) {
+            questions.add(partition.question(position));
+        }
+        Collections.shuffle(questions);
+        return questions;
+    }
+
+    /**
+     * Robert Floyd's sampling algorithm: {@code count} distinct positions in O(count).
+     */
+    static Set<Integer> pickPositions(int n, int count) {
+        int k = Math.min(count, n);
+        Set<Integer> positions = new HashSet<>(k * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            positions.add(positions.contains(t) ? j : t);
+        }
+        return positions;
+    }
+}
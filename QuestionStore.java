@@ -0,0 +1,205 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable question bank. All question and option text lives in
+ * one UTF-8 byte arena with identical strings stored once, and each question
+ * is an int handle into parallel primitive arrays: five string references
+ * (question text, then options A-D) and a byte for the correct option.
+ * A bank of hundreds of thousands of questions is a handful of arrays
+ * instead of millions of {@link String} objects, so it can stay resident
+ * without adding GC work. Text is decoded only when a question is handed
+ * out for play or display.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class QuestionStore {
+    /** Text fields per question: the question, then options A to D. */
+    static final int FIELDS = 1 + Game.Question.OPTION_COUNT;
+
+    private final byte[] arena;
+    private final int[] stringStarts; // string i is arena[stringStarts[i], stringStarts[i + 1])
+    private final int[] refs;         // FIELDS string ids per question
+    private final byte[] correctOptions;
+
+    private QuestionStore(byte[] arena, int[] stringStarts, int[] refs, byte[] correctOptions) {
+        this.arena = arena;
+        this.stringStarts = stringStarts;
+        this.refs = refs;
+        this.correctOptions = correctOptions;
+    }
+
+    /** @return number of questions */
+    int size() {
+        return correctOptions.length;
+    }
+
+    /**
+     * Decodes one text field.
+     *
+     * @param handle Question handle, from 0 to {@link #size()} - 1
+     * @param field 0 for the question text, 1 to 4 for options A to D
+     */
+    String text(int handle, int field) {
+        int id = refs[handle * FIELDS + field];
+        int start = stringStarts[id];
+        return new String(arena, start, stringStarts[id + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /** @return index of the correct option, or -1 if none is marked correct */
+    int correctOption(int handle) {
+        return correctOptions[handle];
+    }
+
+    /**
+     * Decodes a question for play or display.
+     */
+    Game.Question question(int handle) {
+        return new Game.Question(text(handle, 0), text(handle, 1), text(handle, 2), text(handle, 3),
+                text(handle, 4), correctOptions[handle]);
+    }
+
+    /**
+     * Copy with one question appended as the last handle. The new text is not
+     * de-duplicated against the existing arena; a reload compacts it again.
+     */
+    QuestionStore with(Game.Question question) {
+        byte[][] encoded = new byte[FIELDS][];
+        int added = 0;
+        for (int field = 0; field < FIELDS; field++) {
+            encoded[field] = encode(field == 0 ? question.getQuestion() : question.getOption(field - 1));
+            added += encoded[field].length;
+        }
+        int strings = stringStarts.length - 1;
+        byte[] newArena = Arrays.copyOf(arena, arena.length + added);
+        int[] newStarts = Arrays.copyOf(stringStarts, stringStarts.length + FIELDS);
+        int[] newRefs = Arrays.copyOf(refs, refs.length + FIELDS);
+        int offset = arena.length;
+        for (int field = 0; field < FIELDS; field++) {
+            System.arraycopy(encoded[field], 0, newArena, offset, encoded[field].length);
+            offset += encoded[field].length;
+            newStarts[strings + field + 1] = offset;
+            newRefs[refs.length + field] = strings + field;
+        }
+        byte[] newCorrect = Arrays.copyOf(correctOptions, correctOptions.length + 1);
+        newCorrect[correctOptions.length] = (byte) question.getCorrectOption();
+        return new QuestionStore(newArena, newStarts, newRefs, newCorrect);
+    }
+
+    /**
+     * Copy without one question; the last question takes over its handle.
+     * The arena is shared, so the removed text lingers until the next reload.
+     */
+    QuestionStore without(int handle) {
+        int last = size() - 1;
+        int[] newRefs = Arrays.copyOf(refs, last * FIELDS);
+        byte[] newCorrect = Arrays.copyOf(correctOptions, last);
+        if (handle < last) {
+            System.arraycopy(refs, last * FIELDS, newRefs, handle * FIELDS, FIELDS);
+            newCorrect[handle] = correctOptions[last];
+        }
+        return new QuestionStore(arena, stringStarts, newRefs, newCorrect);
+    }
+
+    /** @return approximate heap bytes held by the arrays of this store */
+    long footprintBytes() {
+        return arena.length + 4L * stringStarts.length + 4L * refs.length + correctOptions.length;
+    }
+
+    private static byte[] encode(String text) {
+        return (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Accumulates questions, interning repeated strings, then freezes them into a store.
+     * Not thread-safe.
+     */
+    static final class Builder {
+        private final Map<String, Integer> interned = new HashMap<>();
+        private byte[] arena;
+        private int arenaSize;
+        private int[] stringStarts;
+        private int stringCount;
+        private int[] refs;
+        private byte[] correctOptions;
+        private int size;
+
+        /**
+         * @param expectedQuestions Sizing hint
+         */
+        Builder(int expectedQuestions) {
+            int capacity = Math.max(expectedQuestions, 16);
+            arena = new byte[capacity * 64];
+            stringStarts = new int[capacity * FIELDS + 1];
+            refs = new int[capacity * FIELDS];
+            correctOptions = new byte[capacity];
+        }
+
+        /**
+         * Adds a question.
+         *
+         * @param correctOption Index of the correct option, or -1 if none
+         * @return the question's handle in the built store
+         */
+        int add(String question, String optionA, String optionB, String optionC, String optionD, int correctOption) {
+            if (correctOption < -1 || correctOption >= Game.Question.OPTION_COUNT) {
+                throw new IllegalArgumentException("Correct option out of range: " + correctOption);
+            }
+            if (size == correctOptions.length) {
+                correctOptions = Arrays.copyOf(correctOptions, size * 2);
+                refs = Arrays.copyOf(refs, size * 2 * FIELDS);
+            }
+            int base = size * FIELDS;
+            refs[base] = intern(question);
+            refs[base + 1] = intern(optionA);
+            refs[base + 2] = intern(optionB);
+            refs[base + 3] = intern(optionC);
+            refs[base + 4] = intern(optionD);
+            correctOptions[size] = (byte) correctOption;
+            return size++;
+        }
+
+        /**
+         * Adds an already decoded question.
+         *
+         * @return the question's handle in the built store
+         */
+        int add(Game.Question question) {
+            return add(question.getQuestion(), question.getOptionA(), question.getOptionB(),
+                    question.getOptionC(), question.getOptionD(), question.getCorrectOption());
+        }
+
+        QuestionStore build() {
+            int[] starts = Arrays.copyOf(stringStarts, stringCount + 1);
+            return new QuestionStore(Arrays.copyOf(arena, arenaSize), starts,
+                    Arrays.copyOf(refs, size * FIELDS), Arrays.copyOf(correctOptions, size));
+        }
+
+        private int intern(String text) {
+            String key = text == null ? "" : text;
+            Integer existing = interned.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (arenaSize + bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+            }
+            System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+            arenaSize += bytes.length;
+            if (stringCount + 2 > stringStarts.length) {
+                stringStarts = Arrays.copyOf(stringStarts, stringStarts.length * 2);
+            }
+            int id = stringCount++;
+            stringStarts[id + 1] = arenaSize;
+            interned.put(key, id);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,985 @@
+package org.example;
+
+import java.sql.Connection;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Data-access layer for users, questions and scores.
+ * Every query borrows a pooled connection from {@link DatabaseConnection},
+ * so statements are prepared once per physical connection and reused.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class QuizRepository {
+    private static final String SELECT_QUESTIONS_BY_DIFFICULTY =
+            "SELECT id, question, optionA, optionB, optionC, optionD, correctAnswer, correct_option FROM questions WHERE difficulty = ?";
+    private static final String QUESTION_PAGE_COLUMNS =
+            "SELECT id, question, optionA, optionB, optionC, optionD, correctAnswer, difficulty FROM questions ";
+    private static final String SELECT_QUESTION_PAGE_FIRST = QUESTION_PAGE_COLUMNS + "ORDER BY id ASC LIMIT ? OFFSET ?";
+    private static final String SELECT_QUESTION_PAGE_AFTER =
+            QUESTION_PAGE_COLUMNS + "WHERE id > ? ORDER BY id ASC LIMIT ? OFFSET ?";
+    private static final String COUNT_QUESTIONS = "SELECT COUNT(*) FROM questions";
+    private static final String SELECT_ALL_QUESTIONS =
+            "SELECT difficulty, question, optionA, optionB, optionC, optionD, correctAnswer, correct_option "
+                    + "FROM questions ORDER BY id";
+    private static final String INSERT_QUESTION =
+            "INSERT INTO questions (question, optionA, optionB, optionC, optionD, correctAnswer, correct_option, difficulty) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_QUESTION = "DELETE FROM questions WHERE id = ?";
+    private static final String UPDATE_QUESTION_DIFFICULTY = "UPDATE questions SET difficulty = ? WHERE id = ?";
+
+    private static final String SELECT_USER_LOGIN = "SELECT password, country, role FROM users WHERE username = ?";
+    private static final String SELECT_USER_ROLE = "SELECT role FROM users WHERE username = ?";
+    private static final String UPDATE_USER_ROLE = "UPDATE users SET role = ? WHERE username = ?";
+    private static final String UPDATE_USER_PASSWORD =
+            "UPDATE users SET password = ? WHERE username = ? AND password = ?";
+    private static final String COUNT_USERS = "SELECT COUNT(*) FROM users";
+    private static final String SELECT_ALL_USERNAMES = "SELECT username FROM users";
+    private static final int MYSQL_DUPLICATE_KEY = 1062; // ER_DUP_ENTRY
+    private static final String INSERT_USER = "INSERT INTO users (username, password, country) VALUES (?, ?, ?)";
+
+    private static final String SELECT_USER_STATS_FOR_UPDATE =
+            "SELECT games_played, total_score FROM user_stats WHERE username = ? FOR UPDATE";
+    private static final String UPSERT_USER_STATS =
+            "INSERT INTO user_stats (username, games_played, total_score, best_score, last_played) VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE games_played = games_played + VALUES(games_played), "
+                    + "total_score = total_score + VALUES(total_score), "
+                    + "best_score = GREATEST(best_score, VALUES(best_score)), "
+                    + "last_played = GREATEST(COALESCE(last_played, VALUES(last_played)), VALUES(last_played))";
+    private static final String INSERT_SCORE =
+            "INSERT INTO scores (username, score, submission_time, average_score, difficulty) VALUES (?, ?, ?, ?, ?)";
+    private static final String LEADERBOARD_COLUMNS = "SELECT id, username, score, average_score, difficulty, submission_time FROM scores ";
+    private static final String SELECT_TOP_SCORES = LEADERBOARD_COLUMNS
+            + "WHERE difficulty IS NULL OR difficulty NOT LIKE '% Speed' ORDER BY score DESC LIMIT ?";
+    private static final String SELECT_TOP_SCORES_BY_DIFFICULTY =
+            LEADERBOARD_COLUMNS + "WHERE difficulty = ? ORDER BY score DESC LIMIT ?";
+    private static final String SELECT_SCORE_DIFFICULTIES = "SELECT DISTINCT difficulty FROM scores WHERE difficulty IS NOT NULL";
+    private static final String SELECT_SCORES_SINCE = LEADERBOARD_COLUMNS + "WHERE submission_time >= ?";
+    private static final String SELECT_SCORES_AFTER_ID = LEADERBOARD_COLUMNS + "WHERE id > ? ORDER BY id";
+    private static final String SELECT_MAX_SCORE_ID = "SELECT COALESCE(MAX(id), 0) FROM scores";
+    private static final String SELECT_SCORE_PAGE_FIRST =
+            "SELECT id, username, score FROM scores ORDER BY score DESC, id DESC LIMIT ? OFFSET ?";
+    private static final String SELECT_SCORE_PAGE_AFTER =
+            "SELECT id, username, score FROM scores WHERE score < ? OR (score = ? AND id < ?) "
+                    + "ORDER BY score DESC, id DESC LIMIT ? OFFSET ?";
+    private static final String COUNT_SCORES = "SELECT COUNT(*) FROM scores";
+    private static final String UPSERT_SCORE_HISTOGRAM =
+            "INSERT INTO score_histogram (difficulty, score, games) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE games = games + VALUES(games)";
+    private static final String SELECT_SCORE_HISTOGRAM = "SELECT difficulty, score, games FROM score_histogram";
+    private static final String EXPORT_SCORES =
+            "SELECT id, username, score, difficulty, average_score, submission_time FROM scores ORDER BY id";
+    private static final String EXPORT_QUESTIONS =
+            "SELECT id, question, optionA, optionB, optionC, optionD, correct_option, correctAnswer, difficulty "
+                    + "FROM questions ORDER BY id";
+
+    private final QuestionCache questionCache = new QuestionCache(this);
+    private final QuestionSampler sampler = new QuestionSampler(questionCache);
+    private final PasswordHasher passwordHasher = new PasswordHasher();
+    private final LoginRateLimiter loginLimiter = new LoginRateLimiter();
+    private final UsernameFilter usernameFilter = new UsernameFilter(this);
+    private final RoleResolver roleResolver = new RoleResolver(this);
+
+    /**
+     * Outcome of a login attempt, with the user's attributes when it succeeded.
+     */
+    public static final class LoginResult {
+        public enum Status {
+            SUCCESS,
+            /** Unknown username or wrong password */
+            INVALID,
+            /** Too many recent attempts for this username */
+            THROTTLED,
+            /** Password checks are backed up; try again shortly */
+            BUSY
+        }
+
+        static final LoginResult INVALID = new LoginResult(Status.INVALID, null, null);
+        static final LoginResult THROTTLED = new LoginResult(Status.THROTTLED, null, null);
+        static final LoginResult BUSY = new LoginResult(Status.BUSY, null, null);
+
+        private final Status status;
+        private final String country;
+        private final String role;
+
+        private LoginResult(Status status, String country, String role) {
+            this.status = status;
+            this.country = country;
+            this.role = role;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isSuccess() {
+            return status == Status.SUCCESS;
+        }
+
+        /** @return the user's country after a successful login, otherwise null */
+        public String getCountry() {
+            return country;
+        }
+
+        /** @return one of the {@code UserSession.ROLE_} constants after a successful login, otherwise null */
+        public String getRole() {
+            return role;
+        }
+    }
+
+    QuizRepository() {} // Obtain through DatabaseConnection.getRepository()
+
+    /**
+     * Fetches random questions for a difficulty level.
+     * Sampling is done by {@link QuestionSampler} against the cached question bank,
+     * so the database is only read when the difficulty's partition is not cached.
+     *
+     * @param difficulty Difficulty level to filter by
+     * @param limit Maximum number of questions
+     * @return Questions in random order
+     * @throws SQLException if database access error occurs
+     */
+    public List<Game.Question> fetchRandomQuestions(String difficulty, int limit) throws SQLException {
+        return sampler.sample(difficulty, limit);
+    }
+
+    /**
+     * Loads every question of a difficulty level for {@link QuestionCache}.
+     * Rows are packed straight into a {@link QuestionStore} without building question objects.
+     *
+     * @param difficulty Difficulty level to filter by
+     * @return Partition snapshot holding ids and questions
+     * @throws SQLException if database access error occurs
+     */
+    QuestionCache.Partition loadPartition(String difficulty) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        QuestionStore.Builder store = new QuestionStore.Builder(256);
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_QUESTIONS_BY_DIFFICULTY)) {
+            stmt.setString(1, difficulty);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("id"));
+                    int correctOption = rs.getInt("correct_option");
+                    if (rs.wasNull()) {
+                        // Row written by a client that only knows the answer text
+                        store.add(new Game.Question(rs.getString("question"), rs.getString("optionA"),
+                                rs.getString("optionB"), rs.getString("optionC"), rs.getString("optionD"),
+                                rs.getString("correctAnswer")));
+                    } else {
+                        store.add(rs.getString("question"), rs.getString("optionA"), rs.getString("optionB"),
+                                rs.getString("optionC"), rs.getString("optionD"), correctOption);
+                    }
+                }
+            }
+        }
+        int[] idArray = new int[ids.size()];
+        for (int i = 0; i < idArray.length; i++) {
+            idArray[i] = ids.get(i);
+        }
+        return new QuestionCache.Partition(idArray, store.build());
+    }
+
+    /**
+     * Reads every question in id order, for exporting the question bank.
+     *
+     * @param consumer Receives each question with its difficulty level
+     * @throws SQLException if database access error occurs
+     */
+    void forEachQuestion(BiConsumer<String, Game.Question> consumer) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_ALL_QUESTIONS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                consumer.accept(rs.getString("difficulty"), readQuestion(rs));
+            }
+        }
+    }
+
+    /**
+     * Inserts a new question and adds it to the question cache.
+     *
+     * @return true if a row was inserted
+     * @throws SQLException if database access error occurs
+     */
+    public boolean addQuestion(Game.Question question, String difficulty) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(INSERT_QUESTION, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, question.getQuestion());
+            stmt.setString(2, question.getOptionA());
+            stmt.setString(3, question.getOptionB());
+            stmt.setString(4, question.getOptionC());
+            stmt.setString(5, question.getOptionD());
+            // The answer text is still written for clients that predate correct_option
+            stmt.setString(6, question.getCorrectAnswer());
+            stmt.setInt(7, question.getCorrectOption());
+            stmt.setString(8, difficulty);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    questionCache.added(keys.getInt(1), difficulty, question);
+                } else {
+                    questionCache.invalidate(difficulty);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Inserts many questions with one JDBC batch in a single transaction.
+     * Partitions of the affected difficulties are dropped from the question cache
+     * and reloaded on next use.
+     *
+     * @param questions Questions to insert
+     * @param difficulties Difficulty level of each question, by position
+     * @return Number of questions inserted
+     * @throws SQLException if database access error occurs; nothing from this call is kept.
+     *         {@link #isDataError} tells whether a row's values were rejected
+     */
+    public int addQuestions(List<Game.Question> questions, List<String> difficulties) throws SQLException {
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(INSERT_QUESTION)) {
+                for (int i = 0; i < questions.size(); i++) {
+                    Game.Question question = questions.get(i);
+                    stmt.setString(1, question.getQuestion());
+                    stmt.setString(2, question.getOptionA());
+                    stmt.setString(3, question.getOptionB());
+                    stmt.setString(4, question.getOptionC());
+                    stmt.setString(5, question.getOptionD());
+                    stmt.setString(6, question.getCorrectAnswer());
+                    stmt.setInt(7, question.getCorrectOption());
+                    stmt.setString(8, difficulties.get(i));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        for (String difficulty : new HashSet<>(difficulties)) {
+            questionCache.invalidate(difficulty);
+        }
+        return questions.size();
+    }
+
+    /**
+     * Deletes a question by id and removes it from the question cache.
+     *
+     * @return true if a question was deleted
+     * @throws SQLException if database access error occurs
+     */
+    public boolean deleteQuestion(int questionId) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(DELETE_QUESTION)) {
+            stmt.setInt(1, questionId);
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                questionCache.removed(questionId);
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Moves a question to another difficulty level, in the database and the question cache.
+     *
+     * @return true if a question was updated
+     * @throws SQLException if database access error occurs
+     */
+    public boolean updateQuestionDifficulty(int questionId, String difficulty) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(UPDATE_QUESTION_DIFFICULTY)) {
+            stmt.setString(1, difficulty);
+            stmt.setInt(2, questionId);
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                questionCache.moved(questionId, difficulty);
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * Checks a player's credentials. Names the {@link UsernameFilter} has never seen
+     * are still looked up, since another client may have registered them, but skip
+     * the rate limiter unless the user turns out to exist. Attempts are rate-limited
+     * per username before any hashing, and the stored value is read first so the connection is back in
+     * the pool while the password is verified on the {@link PasswordHasher} pool.
+     * A legacy plain password, or a hash made with an older work factor, is
+     * replaced by a current hash after a successful login.
+     *
+     * @param username Player's username
+     * @param password Player's password
+     * @return Outcome of the attempt, carrying the user's country and role on success
+     * @throws SQLException if database access error occurs
+     */
+    public LoginResult authenticate(String username, String password) throws SQLException {
+        usernameFilter.start();
+        boolean known = usernameFilter.mightContain(username);
+        if (known && !loginLimiter.tryAcquire(username)) {
+            return LoginResult.THROTTLED;
+        }
+        String stored = null;
+        String country = null;
+        String role = null;
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_USER_LOGIN)) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    stored = rs.getString(1);
+                    country = rs.getString(2);
+                    role = UserSession.isValidRole(rs.getString(3)) ? rs.getString(3) : UserSession.ROLE_PLAYER;
+                }
+            }
+        }
+        if (stored == null) {
+            if (known) {
+                usernameFilter.recordFalsePositive();
+            }
+            return LoginResult.INVALID;
+        }
+        if (!known) {
+            // Registered through another client since the filter was built
+            usernameFilter.recordStale(username);
+            if (!loginLimiter.tryAcquire(username)) {
+                return LoginResult.THROTTLED;
+            }
+        }
+        try {
+            if (!passwordHasher.verify(password, stored)) {
+                return LoginResult.INVALID;
+            }
+            loginLimiter.reset(username);
+            roleResolver.put(username, role);
+            if (passwordHasher.needsRehash(stored)) {
+                rehash(username, password, stored);
+            }
+            return new LoginResult(LoginResult.Status.SUCCESS, country, role);
+        } catch (RejectedExecutionException e) {
+            return LoginResult.BUSY;
+        }
+    }
+
+    /**
+     * Replaces a stored password with a current hash, unless it changed meanwhile.
+     * Failure only delays the upgrade to the next login, so it does not fail this one.
+     */
+    private void rehash(String username, String password, String stored) {
+        try {
+            String hash = passwordHasher.hash(password); // Before borrowing a connection
+            try (Connection connection = connect();
+                 PreparedStatement stmt = connection.prepareStatement(UPDATE_USER_PASSWORD)) {
+                stmt.setString(1, hash);
+                stmt.setString(2, username);
+                stmt.setString(3, stored);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException | RejectedExecutionException e) {
+            System.err.println("Could not upgrade password hash for " + username + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up a user's current role for a permission check. Roles are cached
+     * briefly by {@link RoleResolver}, so repeated checks rarely query.
+     *
+     * @param username User to check
+     * @return One of the {@code UserSession.ROLE_} constants, or null if there is no such user
+     * @throws SQLException if database access error occurs
+     */
+    public String resolveRole(String username) throws SQLException {
+        return roleResolver.resolve(username);
+    }
+
+    /**
+     * Reads a user's role, bypassing the cache.
+     */
+    String fetchRole(String username) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_USER_ROLE)) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Changes a user's role and drops the cached one.
+     *
+     * @param username User to change
+     * @param role One of the {@code UserSession.ROLE_} constants
+     * @return true if the user exists
+     * @throws SQLException if database access error occurs
+     */
+    public boolean updateRole(String username, String role) throws SQLException {
+        if (!UserSession.isValidRole(role)) {
+            throw new IllegalArgumentException("Unknown role: " + role);
+        }
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(UPDATE_USER_ROLE)) {
+            stmt.setString(1, role);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() > 0;
+        } finally {
+            roleResolver.invalidate(username);
+        }
+    }
+
+    /** @return the username filter, for its hit and rebuild metrics */
+    UsernameFilter getUsernameFilter() {
+        return usernameFilter;
+    }
+
+    /** @return the hasher, for its queue and timing metrics */
+    public PasswordHasher getPasswordHasher() {
+        return passwordHasher;
+    }
+
+    /**
+     * Registers a new player with a single INSERT. The unique index on
+     * {@code users.username} decides whether the name is free, so two
+     * concurrent signups for one name cannot both succeed.
+     *
+     * @param username Username to register
+     * @param password Player's password
+     * @param country Player's country
+     * @return true if the user was created, false if the username is already taken
+     * @throws SQLException if database access error occurs
+     * @throws RejectedExecutionException if password hashing is backed up
+     */
+    public boolean registerUser(String username, String password, String country) throws SQLException {
+        String hash = passwordHasher.hash(password); // Before borrowing a connection
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(INSERT_USER)) {
+            stmt.setString(1, username);
+            stmt.setString(2, hash);
+            stmt.setString(3, country);
+            boolean created = stmt.executeUpdate() > 0;
+            if (created) {
+                usernameFilter.add(username);
+            }
+            return created;
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // Connector/J reports this as SQLIntegrityConstraintViolationException, as it does NOT NULL
+    // and foreign key violations, so the vendor code is what identifies a taken name
+    private static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException && e.getErrorCode() == MYSQL_DUPLICATE_KEY;
+    }
+
+    /**
+     * Records a finished quiz and the user's running average including it.
+     *
+     * @param username Player's username
+     * @param score Final score of the quiz
+     * @param difficulty Difficulty level the quiz was played at
+     * @return The user's average score after this submission
+     * @throws SQLException if database access error occurs
+     */
+    public double saveScore(String username, int score, String difficulty) throws SQLException {
+        return saveScores(List.of(new ScoreSubmissionQueue.Submission(username, score, difficulty,
+                System.currentTimeMillis()))).get(0).getAverageScore();
+    }
+
+    /**
+     * Records a batch of finished quizzes in one transaction with a single JDBC batch insert.
+     * The per-user {@code user_stats} aggregate is locked, read and updated in the same
+     * transaction, so each row's average comes from the aggregate instead of re-summing
+     * the user's history. It includes earlier submissions of the same user in the batch.
+     * Timed scores are on a different scale, so they are left out of {@code user_stats}
+     * and stored with the user's regular average. The {@code score_histogram} summary
+     * used by admin reports is updated alongside; it keys buckets by difficulty, which
+     * keeps timed scores apart there too.
+     *
+     * @param submissions Scores to insert, in submission order
+     * @return The inserted rows, in submission order, with their ids and running averages
+     * @throws SQLException if database access error occurs; nothing is inserted in that case
+     */
+    public List<Leaderboard.Entry> saveScores(List<ScoreSubmissionQueue.Submission> submissions) throws SQLException {
+        double[] averages = new double[submissions.size()];
+        long[] ids = new long[submissions.size()];
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            try {
+                Map<String, UserStatsDelta> deltas = new LinkedHashMap<>();
+                try (PreparedStatement selectStmt = connection.prepareStatement(SELECT_USER_STATS_FOR_UPDATE);
+                     PreparedStatement insertStmt = connection.prepareStatement(INSERT_SCORE, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement upsertStmt = connection.prepareStatement(UPSERT_USER_STATS);
+                     PreparedStatement histogramStmt = connection.prepareStatement(UPSERT_SCORE_HISTOGRAM)) {
+                    for (int i = 0; i < submissions.size(); i++) {
+                        ScoreSubmissionQueue.Submission submission = submissions.get(i);
+                        UserStatsDelta delta = deltas.get(submission.getUsername());
+                        if (delta == null) {
+                            delta = new UserStatsDelta();
+                            selectStmt.setString(1, submission.getUsername());
+                            try (ResultSet rs = selectStmt.executeQuery()) {
+                                if (rs.next()) {
+                                    delta.baseCount = rs.getInt(1);
+                                    delta.baseSum = rs.getLong(2);
+                                }
+                            }
+                            deltas.put(submission.getUsername(), delta);
+                        }
+                        if (!QuizSession.isTimedDifficulty(submission.getDifficulty())) {
+                            delta.add(submission);
+                        }
+                        averages[i] = delta.average();
+
+                        insertStmt.setString(1, submission.getUsername());
+                        insertStmt.setInt(2, submission.getScore());
+                        insertStmt.setTimestamp(3, new Timestamp(submission.getSubmittedAt()));
+                        insertStmt.setDouble(4, averages[i]);
+                        insertStmt.setString(5, submission.getDifficulty());
+                        insertStmt.addBatch();
+                    }
+                    insertStmt.executeBatch();
+                    try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                        for (int i = 0; i < ids.length && keys.next(); i++) {
+                            ids[i] = keys.getLong(1);
+                        }
+                    }
+
+                    for (Map.Entry<String, UserStatsDelta> entry : deltas.entrySet()) {
+                        UserStatsDelta delta = entry.getValue();
+                        if (delta.count == 0) {
+                            continue; // Only timed scores for this user
+                        }
+                        upsertStmt.setString(1, entry.getKey());
+                        upsertStmt.setInt(2, delta.count);
+                        upsertStmt.setLong(3, delta.sum);
+                        upsertStmt.setInt(4, delta.best);
+                        upsertStmt.setTimestamp(5, new Timestamp(delta.lastPlayed));
+                        upsertStmt.addBatch();
+                    }
+                    upsertStmt.executeBatch();
+
+                    // Sort the histogram upserts so concurrent writers lock rows in the same order
+                    Map<String, Map<Integer, Integer>> histogramDeltas = new TreeMap<>();
+                    for (ScoreSubmissionQueue.Submission submission : submissions) {
+                        String difficulty = submission.getDifficulty() == null
+                                ? ScoreSummary.UNKNOWN_DIFFICULTY : submission.getDifficulty();
+                        histogramDeltas.computeIfAbsent(difficulty, d -> new TreeMap<>())
+                                .merge(submission.getScore(), 1, Integer::sum);
+                    }
+                    for (Map.Entry<String, Map<Integer, Integer>> byDifficulty : histogramDeltas.entrySet()) {
+                        for (Map.Entry<Integer, Integer> bucket : byDifficulty.getValue().entrySet()) {
+                            histogramStmt.setString(1, byDifficulty.getKey());
+                            histogramStmt.setInt(2, bucket.getKey());
+                            histogramStmt.setInt(3, bucket.getValue());
+                            histogramStmt.addBatch();
+                        }
+                    }
+                    histogramStmt.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        List<Leaderboard.Entry> saved = new ArrayList<>(submissions.size());
+        for (int i = 0; i < submissions.size(); i++) {
+            ScoreSubmissionQueue.Submission s = submissions.get(i);
+            saved.add(new Leaderboard.Entry(ids[i], s.getUsername(), s.getScore(), averages[i],
+                    s.getDifficulty(), s.getSubmittedAt()));
+        }
+        return saved;
+    }
+
+    /**
+     * Streams the scores needed to seed {@link Leaderboard}: the all-time top rows
+     * overall and per difficulty, plus every score submitted since {@code since}.
+     * Rows matched by more than one of these queries are delivered once.
+     *
+     * @param limit Board size
+     * @param since Start of the longest time window, epoch millis
+     * @param consumer Receives each row
+     * @throws SQLException if database access error occurs
+     */
+    void forEachScoreForLeaderboard(int limit, long since, Consumer<Leaderboard.Entry> consumer) throws SQLException {
+        Set<Long> seen = new HashSet<>();
+        Consumer<Leaderboard.Entry> distinct = entry -> {
+            if (seen.add(entry.getId())) {
+                consumer.accept(entry);
+            }
+        };
+
+        try (Connection connection = connect()) {
+            List<String> difficulties = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_SCORE_DIFFICULTIES);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    difficulties.add(rs.getString(1));
+                }
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_TOP_SCORES)) {
+                stmt.setInt(1, limit);
+                readLeaderboardRows(stmt, distinct);
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_TOP_SCORES_BY_DIFFICULTY)) {
+                for (String difficulty : difficulties) {
+                    stmt.setString(1, difficulty);
+                    stmt.setInt(2, limit);
+                    readLeaderboardRows(stmt, distinct);
+                }
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_SCORES_SINCE)) {
+                stmt.setTimestamp(1, new Timestamp(since));
+                readLeaderboardRows(stmt, distinct);
+            }
+        }
+    }
+
+    /**
+     * @return the highest score id, or 0 if there are no scores
+     * @throws SQLException if database access error occurs
+     */
+    long fetchMaxScoreId() throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_MAX_SCORE_ID);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Streams scores with an id above {@code afterId}, in id order, so
+     * {@link Leaderboard} can pick up new rows by primary key range.
+     *
+     * @param afterId Highest id already read
+     * @param consumer Receives each row
+     * @throws SQLException if database access error occurs
+     */
+    void forEachScoreAfter(long afterId, Consumer<Leaderboard.Entry> consumer) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_SCORES_AFTER_ID)) {
+            stmt.setLong(1, afterId);
+            readLeaderboardRows(stmt, consumer);
+        }
+    }
+
+    private static void readLeaderboardRows(PreparedStatement stmt, Consumer<Leaderboard.Entry> consumer)
+            throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Timestamp submitted = rs.getTimestamp("submission_time");
+                consumer.accept(new Leaderboard.Entry(rs.getLong("id"), rs.getString("username"), rs.getInt("score"),
+                        rs.getDouble("average_score"), rs.getString("difficulty"),
+                        submitted == null ? 0L : submitted.getTime()));
+            }
+        }
+    }
+
+    /**
+     * Reads score statistics from the {@code score_histogram} summary table.
+     * Only the histogram rows are transferred, never individual scores.
+     *
+     * @return Overall and per-difficulty count, average, extremes and percentiles
+     * @throws SQLException if database access error occurs
+     */
+    public ScoreSummary fetchScoreSummary() throws SQLException {
+        ScoreSummary summary = new ScoreSummary();
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_SCORE_HISTOGRAM);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                summary.add(rs.getString("difficulty"), rs.getInt("score"), rs.getLong("games"));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Pages through the questions table in id order, for {@link PagedTableModel}.
+     * Rows are {id, question, optionA, optionB, optionC, optionD, correctAnswer, difficulty}.
+     *
+     * @return PageSource keyed on id
+     */
+    public PagedTableModel.PageSource questionPages() {
+        return new PagedTableModel.PageSource() {
+            @Override
+            public int count() throws SQLException {
+                return countRows(COUNT_QUESTIONS);
+            }
+
+            @Override
+            public List<Object[]> fetch(Object[] afterKey, int skip, int limit) throws SQLException {
+                List<Object[]> rows = new ArrayList<>(limit);
+                try (Connection connection = connect();
+                     PreparedStatement stmt = connection.prepareStatement(
+                             afterKey == null ? SELECT_QUESTION_PAGE_FIRST : SELECT_QUESTION_PAGE_AFTER)) {
+                    int i = 1;
+                    if (afterKey != null) {
+                        stmt.setInt(i++, (Integer) afterKey[0]);
+                    }
+                    stmt.setInt(i++, limit);
+                    stmt.setInt(i, skip);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows.add(new Object[]{rs.getInt("id"), rs.getString("question"), rs.getString("optionA"),
+                                    rs.getString("optionB"), rs.getString("optionC"), rs.getString("optionD"),
+                                    rs.getString("correctAnswer"), rs.getString("difficulty")});
+                        }
+                    }
+                }
+                return rows;
+            }
+
+            @Override
+            public Object[] keyOf(Object[] row) {
+                return new Object[]{row[0]};
+            }
+        };
+    }
+
+    /**
+     * Pages through the scores table, highest first, for {@link PagedTableModel}.
+     * Rows are {username, score, id}; the trailing id is only used as the tie-breaking key.
+     *
+     * @return PageSource keyed on (score, id)
+     */
+    public PagedTableModel.PageSource scorePages() {
+        return new PagedTableModel.PageSource() {
+            @Override
+            public int count() throws SQLException {
+                return countRows(COUNT_SCORES);
+            }
+
+            @Override
+            public List<Object[]> fetch(Object[] afterKey, int skip, int limit) throws SQLException {
+                List<Object[]> rows = new ArrayList<>(limit);
+                try (Connection connection = connect();
+                     PreparedStatement stmt = connection.prepareStatement(
+                             afterKey == null ? SELECT_SCORE_PAGE_FIRST : SELECT_SCORE_PAGE_AFTER)) {
+                    int i = 1;
+                    if (afterKey != null) {
+                        stmt.setInt(i++, (Integer) afterKey[0]);
+                        stmt.setInt(i++, (Integer) afterKey[0]);
+                        stmt.setInt(i++, (Integer) afterKey[1]);
+                    }
+                    stmt.setInt(i++, limit);
+                    stmt.setInt(i, skip);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows.add(new Object[]{rs.getString("username"), rs.getInt("score"), rs.getInt("id")});
+                        }
+                    }
+                }
+                return rows;
+            }
+
+            @Override
+            public Object[] keyOf(Object[] row) {
+                return new Object[]{row[1], row[2]};
+            }
+        };
+    }
+
+    /**
+     * Reads the question at the cursor, using the stored option index where there is one.
+     */
+    private static Game.Question readQuestion(ResultSet rs) throws SQLException {
+        int correctOption = rs.getInt("correct_option");
+        if (rs.wasNull()) {
+            // Row written by a client that only knows the answer text
+            return new Game.Question(rs.getString("question"), rs.getString("optionA"), rs.getString("optionB"),
+                    rs.getString("optionC"), rs.getString("optionD"), rs.getString("correctAnswer"));
+        }
+        return new Game.Question(rs.getString("question"), rs.getString("optionA"), rs.getString("optionB"),
+                rs.getString("optionC"), rs.getString("optionD"), correctOption);
+    }
+
+    /**
+     * Receives the rows of a streamed table, one at a time.
+     */
+    public interface RowConsumer {
+        /** Called once, before any row. */
+        void columns(String[] names) throws IOException;
+
+        /**
+         * @param values Column values of one row; the array is reused for the next row
+         * @return false to stop streaming
+         */
+        boolean row(Object[] values) throws IOException;
+    }
+
+    /** @return number of registered users */
+    int countUsers() throws SQLException {
+        return countRows(COUNT_USERS);
+    }
+
+    /**
+     * Streams every username, in constant memory, for {@link UsernameFilter}.
+     */
+    void forEachUsername(Consumer<String> consumer) throws SQLException {
+        try {
+            stream(SELECT_ALL_USERNAMES, new RowConsumer() {
+                @Override
+                public void columns(String[] names) {
+                }
+
+                @Override
+                public boolean row(Object[] values) {
+                    consumer.accept((String) values[0]);
+                    return true;
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // The consumer does no I/O
+        }
+    }
+
+    /** @return number of rows in the scores table */
+    public int countScores() throws SQLException {
+        return countRows(COUNT_SCORES);
+    }
+
+    /** @return number of rows in the questions table */
+    public int countQuestions() throws SQLException {
+        return countRows(COUNT_QUESTIONS);
+    }
+
+    /**
+     * Streams every score row in id order, in constant memory.
+     */
+    public void streamScores(RowConsumer consumer) throws SQLException, IOException {
+        stream(EXPORT_SCORES, consumer);
+    }
+
+    /**
+     * Streams every question row in id order, in constant memory.
+     */
+    public void streamQuestions(RowConsumer consumer) throws SQLException, IOException {
+        stream(EXPORT_QUESTIONS, consumer);
+    }
+
+    /**
+     * Runs a query in MySQL Connector/J streaming mode: a forward-only, read-only
+     * statement with a fetch size of {@code Integer.MIN_VALUE} makes the driver
+     * hand over rows as they arrive instead of buffering the whole result.
+     * The connection can run nothing else until the result is closed, so the
+     * statement is not taken from the connection's statement cache. Other
+     * databases (the embedded one used for load tests) get an ordinary fetch size.
+     */
+    private void stream(String sql, RowConsumer consumer) throws SQLException, IOException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+            stmt.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                String[] names = new String[meta.getColumnCount()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = meta.getColumnLabel(i + 1);
+                }
+                consumer.columns(names);
+                Object[] values = new Object[names.length];
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    if (!consumer.row(values)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int countRows(String sql) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Tells whether a statement failed because of the values it wrote, so
+     * retrying the same row cannot succeed: SQLSTATE class 22 (data exception,
+     * such as a value too long for its column) or 23 (integrity constraint violation).
+     */
+    static boolean isDataError(SQLException e) {
+        for (Throwable t = e; t instanceof SQLException; t = t.getCause()) {
+            String state = ((SQLException) t).getSQLState();
+            if (t instanceof SQLDataException || t instanceof SQLIntegrityConstraintViolationException
+                    || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Package-private so the JMH benchmarks can point the repository at an embedded database
+    Connection connect() throws SQLException {
+        try {
+            return DatabaseConnection.getConnection();
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL JDBC driver not found", e);
+        }
+    }
+
+    /**
+     * One user's stored aggregate plus what a batch adds to it.
+     */
+    private static class UserStatsDelta {
+        private int baseCount;
+        private long baseSum;
+        private int count;
+        private long sum;
+        private int best = Integer.MIN_VALUE;
+        private long lastPlayed;
+
+        void add(ScoreSubmissionQueue.Submission submission) {
+            count++;
+            sum += submission.getScore();
+            best = Math.max(best, submission.getScore());
+            lastPlayed = Math.max(lastPlayed, submission.getSubmittedAt());
+        }
+
+        double average() {
+            int games = baseCount + count;
+            return games == 0 ? 0 : (double) (baseSum + sum) / games;
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many players' quiz sessions in one process behind a line-based text
+ * protocol on localhost. Each connected player gets its own thread running a
+ * headless {@link QuizSession}; logins, question fetches and score saves go
+ * through the shared {@link QuizRepository}, question cache and write-behind
+ * score queue, so the database sees one connection pool instead of one
+ * client per player.
+ * <p>
+ * Requests and responses are single UTF-8 lines with tab-separated fields:
+ * <pre>
+ * SIGNUP  user  password  country   -&gt; OK | ERR  message
+ * LOGIN   user  password            -&gt; OK  token | ERR  message
+ * RESUME  token                     -&gt; OK  user | ERR  message
+ * START   Easy|Medium|Hard          -&gt; QUESTION  number  total  text  A  B  C  D
+ * ANSWER  option (0-3)              -&gt; RESULT  CORRECT|WRONG  correctOption  score
+ *                                      then QUESTION ... or FINISHED  score  total
+ * FINISH                            -&gt; FINISHED  score  total
+ * QUIT                              -&gt; BYE (connection closed)
+ * </pre>
+ * Lines longer than 4096 characters are discarded unread with an ERR reply.
+ * A quiz's score is saved when it is FINISHED, either after the last answer or on FINISH.
+ * The token from LOGIN identifies a {@link SessionStore} session, so a player who
+ * reconnects can RESUME without sending the password again.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class QuizServer {
+    private static final int DEFAULT_PORT = Integer.getInteger("quiz.server.port", 5050);
+    /** Most players connected at once; {@link SessionStore} sizes its default cap from it. */
+    static final int MAX_CONNECTIONS = Integer.getInteger("quiz.server.maxSessions", 10_000);
+    private static final int IDLE_TIMEOUT_MS = Integer.getInteger("quiz.server.idleTimeoutMs", 300_000);
+    private static final int MAX_LINE_LENGTH = 4096;
+    private static final long MAX_ACCEPT_BACKOFF_MS = 1_000;
+    // Platform threads only need a small stack for a blocking line protocol
+    private static final long PLATFORM_THREAD_STACK_BYTES = 256 * 1024;
+
+    private final int port;
+    private final ThreadFactory sessionThreads = sessionThreadFactory();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger servedSessions = new AtomicInteger();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * @param port TCP port to listen on; 0 picks a free port
+     */
+    public QuizServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Binds to localhost and starts accepting players on a background thread.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        serverSocket = socket;
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "quiz-server-accept");
+        acceptor.start();
+        System.out.println("Quiz server listening on " + socket.getLocalSocketAddress());
+    }
+
+    /**
+     * Stops accepting players and disconnects everyone still connected.
+     * Scores of finished quizzes are already in the score queue and are flushed by it.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        closeQuietly(serverSocket);
+        for (Socket client : clients) {
+            closeQuietly(client);
+        }
+    }
+
+    /** @return the bound port, useful when started with port 0 */
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? port : socket.getLocalPort();
+    }
+
+    /** @return number of players currently connected */
+    public int getActiveSessions() {
+        return clients.size();
+    }
+
+    /** @return number of connections accepted since start */
+    public int getServedSessions() {
+        return servedSessions.get();
+    }
+
+    private void acceptLoop() {
+        long backoffMs = 0;
+        while (running) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+                backoffMs = 0;
+            } catch (IOException e) {
+                if (running) {
+                    // Typically out of file descriptors; back off instead of spinning on the error
+                    backoffMs = Math.min(MAX_ACCEPT_BACKOFF_MS, Math.max(10, backoffMs * 2));
+                    System.err.println("Quiz server accept failed: " + e.getMessage()
+                            + "; retrying in " + backoffMs + " ms");
+                    try {
+                        Thread.sleep(backoffMs);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                continue;
+            }
+            if (clients.size() >= MAX_CONNECTIONS) {
+                reject(client, "Server is full, try again later");
+                continue;
+            }
+            clients.add(client);
+            servedSessions.incrementAndGet();
+            try {
+                sessionThreads.newThread(() -> serve(client)).start();
+            } catch (OutOfMemoryError e) {
+                // Thread creation can fail under extreme load; refuse the player rather than die
+                clients.remove(client);
+                reject(client, "Server is out of resources");
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(IDLE_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            PlayerConnection connection = new PlayerConnection(in, out);
+            try {
+                connection.run();
+            } finally {
+                connection.setUserSession(null);
+            }
+        } catch (SocketTimeoutException e) {
+            // Idle player; the connection is closed by try-with-resources
+        } catch (SocketException e) {
+            // Player disconnected or server stopping
+        } catch (IOException e) {
+            System.err.println("Quiz server connection error: " + e.getMessage());
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private static void reject(Socket client, String message) {
+        try (Socket socket = client;
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            out.write("ERR\t" + message + "\n");
+            out.flush();
+        } catch (IOException e) {
+            // Nothing more to tell a client we could not write to
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * One virtual thread per player where the runtime offers them (Java 21+),
+     * otherwise small-stack daemon platform threads.
+     */
+    private static ThreadFactory sessionThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "quiz-session-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return r -> {
+                Thread t = new Thread(null, r, "quiz-session-" + counter.getAndIncrement(), PLATFORM_THREAD_STACK_BYTES);
+                t.setDaemon(true);
+                return t;
+            };
+        }
+    }
+
+    /**
+     * Protocol state for one connected player.
+     */
+    private static class PlayerConnection {
+        private final BufferedReader in;
+        private final BufferedWriter out;
+        private UserSession userSession;
+        private QuizSession session;
+        private boolean lineTooLong;
+
+        PlayerConnection(BufferedReader in, BufferedWriter out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        void run() throws IOException {
+            String line;
+            while ((line = readLine()) != null) {
+                if (lineTooLong) {
+                    send("ERR\tRequest too long");
+                    out.flush();
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                String command = fields[0].trim().toUpperCase();
+                try {
+                    if (!handle(command, fields)) {
+                        return;
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Quiz server database error: " + e.getMessage());
+                    send("ERR\tDatabase error: " + clean(e.getMessage()));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    send("ERR\t" + clean(e.getMessage()));
+                }
+                out.flush();
+            }
+        }
+
+        /**
+         * Reads one request line without ever buffering more than
+         * {@code MAX_LINE_LENGTH} characters: the rest of a longer line is
+         * skipped up to its newline and {@code lineTooLong} is set.
+         *
+         * @return the line without its terminator, or null at end of stream
+         */
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            lineTooLong = false;
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (lineTooLong) {
+                    continue;
+                }
+                if (line.length() == MAX_LINE_LENGTH) {
+                    lineTooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append((char) c);
+                }
+            }
+            if (c == -1 && line.length() == 0 && !lineTooLong) {
+                return null;
+            }
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            return line.toString();
+        }
+
+        /**
+         * @return false once the player has quit
+         */
+        private boolean handle(String command, String[] fields) throws IOException, SQLException {
+            switch (command) {
+                case "SIGNUP":
+                    signup(fields);
+                    return true;
+                case "LOGIN":
+                    login(fields);
+                    return true;
+                case "RESUME":
+                    resume(fields);
+                    return true;
+                case "START":
+                    start(fields);
+                    return true;
+                case "ANSWER":
+                    answer(fields);
+                    return true;
+                case "FINISH":
+                    finish();
+                    return true;
+                case "QUIT":
+                    send("BYE");
+                    out.flush();
+                    return false;
+                default:
+                    send("ERR\tUnknown command: " + clean(command));
+                    return true;
+            }
+        }
+
+        private void signup(String[] fields) throws IOException, SQLException {
+            requireFields(fields, 4, "SIGNUP\tuser\tpassword\tcountry");
+            String user = fields[1].trim();
+            String password = fields[2].trim();
+            String country = fields[3].trim();
+            if (user.isEmpty() || password.isEmpty() || country.isEmpty()) {
+                send("ERR\tAll fields are required");
+            } else if (user.equalsIgnoreCase("admin")) {
+                send("ERR\tUsername 'admin' is reserved");
+            } else {
+                try {
+                    if (DatabaseConnection.getRepository().registerUser(user, password, country)) {
+                        send("OK");
+                    } else {
+                        send("ERR\tUsername already exists");
+                    }
+                } catch (RejectedExecutionException e) {
+                    send("ERR\tServer busy, try again");
+                }
+            }
+        }
+
+        private void login(String[] fields) throws IOException, SQLException {
+            requireFields(fields, 3, "LOGIN\tuser\tpassword");
+            String user = fields[1].trim();
+            String password = fields[2].trim();
+            QuizRepository.LoginResult result = DatabaseConnection.getRepository().authenticate(user, password);
+            switch (result.getStatus()) {
+                case SUCCESS:
+                    // Throws, and so answers ERR, only if every stored session belongs to a connected player
+                    UserSession created = DatabaseConnection.getSessionStore()
+                            .createAttached(user, result.getCountry(), result.getRole());
+                    setUserSession(created);
+                    session = null;
+                    send("OK\t" + userSession.getToken());
+                    break;
+                case THROTTLED:
+                    send("ERR\tToo many login attempts, wait and try again");
+                    break;
+                case BUSY:
+                    send("ERR\tServer busy, try again");
+                    break;
+                default:
+                    send("ERR\tInvalid username or password");
+            }
+        }
+
+        private void resume(String[] fields) throws IOException {
+            requireFields(fields, 2, "RESUME\ttoken");
+            SessionStore store = DatabaseConnection.getSessionStore();
+            UserSession resumed = store.get(fields[1].trim());
+            if (resumed == null || (resumed != userSession && !store.attach(resumed))) {
+                send("ERR\tUnknown or expired session");
+                return;
+            }
+            if (resumed != userSession) {
+                setUserSession(resumed);
+            }
+            session = null;
+            send("OK\t" + resumed.getUsername());
+        }
+
+        private void start(String[] fields) throws IOException, SQLException {
+            requireFields(fields, 2, "START\tdifficulty");
+            if (userSession == null) {
+                throw new IllegalStateException("Log in first");
+            }
+            if (!DatabaseConnection.getSessionStore().isActive(userSession)) {
+                setUserSession(null);
+                throw new IllegalStateException("Session expired, log in again");
+            }
+            // Only known difficulties: the name keys a cache partition and is saved with the score
+            String difficulty = QuestionImporter.canonicalDifficulty(fields[1].trim());
+            if (difficulty == null) {
+                throw new IllegalArgumentException("Difficulty must be one of "
+                        + String.join(", ", QuestionImporter.DIFFICULTIES));
+            }
+            if (session != null && !session.isFinished()) {
+                session.finish(); // Starting over ends the quiz in progress, as leaving the Game frame would
+            }
+            List<Game.Question> questions = DatabaseConnection.getRepository()
+                    .fetchRandomQuestions(difficulty, QuestionLoader.QUESTIONS_PER_QUIZ);
+            session = new QuizSession(userSession.getUsername(), difficulty, DatabaseConnection.getScoreQueue());
+            session.start(questions);
+            sendQuestion();
+        }
+
+        private void answer(String[] fields) throws IOException {
+            requireFields(fields, 2, "ANSWER\toption");
+            if (session == null) {
+                throw new IllegalStateException("No quiz in progress");
+            }
+            int option;
+            try {
+                option = Integer.parseInt(fields[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Option must be a number from 0 to 3");
+            }
+            QuizSession.Answer result = session.answer(option);
+            send("RESULT\t" + (result.isCorrect() ? "CORRECT" : "WRONG") + "\t" + result.getCorrectOption()
+                    + "\t" + session.getScore());
+            if (session.hasMoreQuestions()) {
+                sendQuestion();
+            } else {
+                finish();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (session == null) {
+                throw new IllegalStateException("No quiz in progress");
+            }
+            int score = session.finish();
+            send("FINISHED\t" + score + "\t" + session.getTotalQuestions());
+        }
+
+        /**
+         * Detaches the current session from this connection and replaces it
+         * with {@code next}, which the caller has already attached.
+         */
+        void setUserSession(UserSession next) {
+            DatabaseConnection.getSessionStore().detach(userSession);
+            userSession = next;
+        }
+
+        private void sendQuestion() throws IOException {
+            Game.Question question = session.getCurrentQuestion();
+            StringBuilder line = new StringBuilder("QUESTION\t")
+                    .append(session.getCurrentIndex() + 1).append('\t')
+                    .append(session.getTotalQuestions()).append('\t')
+                    .append(clean(question.getQuestion()));
+            for (int i = 0; i < Game.Question.OPTION_COUNT; i++) {
+                line.append('\t').append(clean(question.getOption(i)));
+            }
+            send(line.toString());
+        }
+
+        private void send(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+        }
+
+        private static void requireFields(String[] fields, int count, String usage) {
+            if (fields.length < count) {
+                throw new IllegalArgumentException("Usage: " + usage);
+            }
+        }
+
+        /** Keeps free text from breaking the one-line, tab-separated framing. */
+        private static String clean(String text) {
+            return text == null ? "" : text.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+        }
+    }
+
+    /**
+     * Runs the server until the process is stopped.
+     * The port can be given as the first argument or with {@code -Dquiz.server.port}.
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        QuizServer server = new QuizServer(port);
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Could not start quiz server on port " + port + ": " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "quiz-server-stop"));
+    }
+}
@@ -0,0 +1,263 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless state of one quiz being played: question order, answer checking
+ * and scoring, with no Swing dependency. {@link Game} is a view over a
+ * session, and the same engine can drive many sessions in one JVM for
+ * server-side hosting or load tests.
+ * <p>
+ * In a timed session each question has a countdown measured with
+ * {@link System#nanoTime()}. A correct answer scores between
+ * {@link #MIN_POINTS} and {@link #MAX_POINTS}, more the faster it comes;
+ * wrong or late answers score nothing. Timed scores use a different scale
+ * from untimed ones, so they are submitted under their own difficulty label
+ * (see {@link #timedDifficulty(String)}) and get their own leaderboards.
+ * <p>
+ * A session is meant to be driven by one thread at a time and is not
+ * synchronized; callers that hand it between threads must publish it safely.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class QuizSession {
+    /** Points for a correct answer given instantly. */
+    public static final int MAX_POINTS = 100;
+    /** Points for a correct answer given just before time runs out. */
+    public static final int MIN_POINTS = 50;
+    private static final String TIMED_SUFFIX = " Speed";
+
+    private static final List<Game.Question> FALLBACK_QUESTIONS = List.of(
+            new Game.Question("What is 2 + 2?", "3", "4", "5", "6", "4"),
+            new Game.Question("What is the capital of France?", "Berlin", "Madrid", "Paris", "Rome", "Paris"),
+            new Game.Question("Which planet is known as the Red Planet?", "Earth", "Mars", "Jupiter", "Venus", "Mars"),
+            new Game.Question("What is the largest ocean on Earth?", "Atlantic", "Indian", "Arctic", "Pacific", "Pacific"),
+            new Game.Question("How many continents are there?", "5", "6", "7", "8", "7"));
+
+    private final String username;
+    private final String difficulty;
+    private final ScoreSubmissionQueue scoreQueue;
+    private final long questionNanos; // 0 for an untimed session
+    private final List<Game.Question> questions = new ArrayList<>();
+    private int currentIndex;
+    private int score;
+    private int correctCount;
+    private long questionStartNanos;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * Creates a session that has not been started yet.
+     *
+     * @param username Player's username
+     * @param difficulty Difficulty level being played
+     * @param scoreQueue Where the final score is submitted, or null to not persist it
+     */
+    public QuizSession(String username, String difficulty, ScoreSubmissionQueue scoreQueue) {
+        this(username, difficulty, scoreQueue, 0);
+    }
+
+    /**
+     * Creates a timed session that has not been started yet. Its score is
+     * submitted under {@link #timedDifficulty(String)}.
+     *
+     * @param username Player's username
+     * @param difficulty Difficulty level being played
+     * @param scoreQueue Where the final score is submitted, or null to not persist it
+     * @param questionMillis Time allowed per question, or 0 for an untimed session
+     */
+    public QuizSession(String username, String difficulty, ScoreSubmissionQueue scoreQueue, long questionMillis) {
+        if (questionMillis < 0) {
+            throw new IllegalArgumentException("Question time must not be negative: " + questionMillis);
+        }
+        this.username = username;
+        this.difficulty = questionMillis > 0 ? timedDifficulty(difficulty) : difficulty;
+        this.scoreQueue = scoreQueue;
+        this.questionNanos = TimeUnit.MILLISECONDS.toNanos(questionMillis);
+    }
+
+    /**
+     * @return the label timed scores of a difficulty level are stored and ranked under
+     */
+    public static String timedDifficulty(String difficulty) {
+        return difficulty + TIMED_SUFFIX;
+    }
+
+    /**
+     * @return true if a stored difficulty label belongs to timed scores
+     */
+    public static boolean isTimedDifficulty(String difficulty) {
+        return difficulty != null && difficulty.endsWith(TIMED_SUFFIX);
+    }
+
+    /**
+     * Starts the quiz with the given questions in random order. If there are
+     * none, a small built-in set is used so the quiz can still be played.
+     *
+     * @param loaded Questions for this quiz; may be null or empty
+     * @return true if the given questions were used, false if the built-in set was
+     * @throws IllegalStateException if the session was already started
+     */
+    public boolean start(List<Game.Question> loaded) {
+        if (started) {
+            throw new IllegalStateException("Quiz session already started");
+        }
+        started = true;
+        boolean usedLoaded = loaded != null && !loaded.isEmpty();
+        questions.addAll(usedLoaded ? loaded : FALLBACK_QUESTIONS);
+        Collections.shuffle(questions);
+        questionStartNanos = System.nanoTime();
+        return usedLoaded;
+    }
+
+    /**
+     * Starts the current question's countdown now. Views call this once the
+     * question is on screen, so time spent showing feedback for the previous
+     * answer is not charged; otherwise the countdown starts when the previous
+     * question is answered.
+     */
+    public void beginQuestion() {
+        questionStartNanos = System.nanoTime();
+    }
+
+    /**
+     * @return nanoseconds left to answer the current question, never negative;
+     *         {@link Long#MAX_VALUE} for an untimed session
+     */
+    public long getRemainingNanos() {
+        if (!isTimed()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, questionNanos - (System.nanoTime() - questionStartNanos));
+    }
+
+    /**
+     * @return the question to answer next, or null if every question has been answered
+     */
+    public Game.Question getCurrentQuestion() {
+        return hasMoreQuestions() ? questions.get(currentIndex) : null;
+    }
+
+    /**
+     * @return true if the session is started and has unanswered questions
+     */
+    public boolean hasMoreQuestions() {
+        return started && !finished && currentIndex < questions.size();
+    }
+
+    /**
+     * Grades an answer to the current question and moves on to the next one.
+     *
+     * @param option Index of the chosen option, 0 for A through 3 for D
+     * @return Outcome of the answer
+     * @throws IllegalStateException if there is no current question
+     * @throws IllegalArgumentException if the option index is out of range
+     */
+    public Answer answer(int option) {
+        if (!hasMoreQuestions()) {
+            throw new IllegalStateException("No question to answer");
+        }
+        if (option < 0 || option >= Game.Question.OPTION_COUNT) {
+            throw new IllegalArgumentException("Option index out of range: " + option);
+        }
+        return grade(option);
+    }
+
+    /**
+     * Records that time ran out on the current question, which scores nothing,
+     * and moves on to the next one.
+     *
+     * @return Outcome, with no option chosen
+     * @throws IllegalStateException if there is no current question
+     */
+    public Answer timeOut() {
+        if (!hasMoreQuestions()) {
+            throw new IllegalStateException("No question to answer");
+        }
+        return grade(-1);
+    }
+
+    private Answer grade(int option) {
+        long elapsed = System.nanoTime() - questionStartNanos;
+        Game.Question question = questions.get(currentIndex++);
+        questionStartNanos = System.nanoTime();
+        // An answer that arrives after the deadline counts as wrong, whatever it is
+        boolean late = isTimed() && option >= 0 && elapsed > questionNanos;
+        boolean correct = !late && option >= 0 && option == question.getCorrectOption();
+        int points = 0;
+        if (correct) {
+            correctCount++;
+            if (!isTimed()) {
+                points = 1;
+            } else {
+                // Linear from MAX_POINTS at once down to MIN_POINTS at the deadline
+                points = MAX_POINTS - (int) ((MAX_POINTS - MIN_POINTS) * elapsed / questionNanos);
+            }
+        }
+        score += points;
+        return new Answer(correct, late, question, points, elapsed);
+    }
+
+    /**
+     * Ends the quiz and submits the score. Calling it again has no effect.
+     *
+     * @return Final score
+     */
+    public int finish() {
+        if (!finished) {
+            finished = true;
+            if (scoreQueue != null) {
+                scoreQueue.submit(username, score, difficulty);
+            }
+        }
+        return score;
+    }
+
+    public String getUsername() { return username; }
+    public String getDifficulty() { return difficulty; }
+    /** @return correct answers so far in an untimed session, points so far in a timed one */
+    public int getScore() { return score; }
+    public int getCorrectCount() { return correctCount; }
+    public boolean isTimed() { return questionNanos > 0; }
+    /** @return time allowed per question in milliseconds, or 0 for an untimed session */
+    public long getQuestionMillis() { return TimeUnit.NANOSECONDS.toMillis(questionNanos); }
+    public int getTotalQuestions() { return questions.size(); }
+    /** @return zero-based index of the current question, or the total once all are answered */
+    public int getCurrentIndex() { return currentIndex; }
+    public boolean isFinished() { return finished; }
+
+    /**
+     * Outcome of one answer.
+     */
+    public static class Answer {
+        private final boolean correct;
+        private final boolean late;
+        private final Game.Question question;
+        private final int points;
+        private final long elapsedNanos;
+
+        Answer(boolean correct, boolean late, Game.Question question, int points, long elapsedNanos) {
+            this.correct = correct;
+            this.late = late;
+            this.question = question;
+            this.points = points;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isCorrect() { return correct; }
+        /** @return true if an option was chosen after the time allowed, which counts as wrong */
+        public boolean isLate() { return late; }
+        /** @return points this answer added to the score */
+        public int getPoints() { return points; }
+        /** @return time from the question's start to the answer, in nanoseconds */
+        public long getElapsedNanos() { return elapsedNanos; }
+        /** @return index of the correct option, or -1 if the question has no option marked correct */
+        public int getCorrectOption() { return question.getCorrectOption(); }
+        public String getCorrectAnswer() { return question.getCorrectAnswer(); }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of user roles for permission checks. Login seeds it from
+ * the row it already read, so routing needs no second query; checks made
+ * while an admin works re-read the role at most once per
+ * {@code quiz.auth.roleTtlMs} (30000), so a revoked role takes effect within
+ * that time. Role changes made through {@link QuizRepository#updateRole}
+ * invalidate the entry at once. At most {@code quiz.auth.roleCacheSize}
+ * (10000) users are cached.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class RoleResolver {
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("quiz.auth.roleTtlMs", 30_000L));
+    private static final int MAX_ENTRIES = Integer.getInteger("quiz.auth.roleCacheSize", 10_000);
+
+    private final QuizRepository repository;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    RoleResolver(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return the user's role, or null if there is no such user
+     * @throws SQLException if the role had to be read and the read failed
+     */
+    String resolve(String username) throws SQLException {
+        String key = key(username);
+        Entry entry = cache.get(key);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAt < TTL_NANOS) {
+            return entry.role;
+        }
+        String role = repository.fetchRole(username);
+        put(key, role, now);
+        return role;
+    }
+
+    /**
+     * Caches a role just read from the database.
+     */
+    void put(String username, String role) {
+        put(key(username), role, System.nanoTime());
+    }
+
+    /**
+     * Drops a user's cached role, so the next check reads it again.
+     */
+    void invalidate(String username) {
+        cache.remove(key(username));
+    }
+
+    private void put(String key, String role, long now) {
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.values().removeIf(entry -> now - entry.loadedAt >= TTL_NANOS);
+            if (cache.size() >= MAX_ENTRIES) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new Entry(role, now));
+    }
+
+    // MySQL compares usernames case-insensitively, so the cache does too
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final String role; // null for a user that does not exist
+        private final long loadedAt;
+
+        Entry(String role, long loadedAt) {
+            this.role = role;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
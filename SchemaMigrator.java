@@ -0,0 +1,270 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies versioned schema changes the first time the application connects.
+ * Each migration runs once and is recorded in the {@code schema_migrations}
+ * table, so it is safe for every client to call {@link #migrate(Connection)}.
+ * MySQL commits DDL implicitly, so a migration that fails part way can leave
+ * some of its changes behind; every step is therefore safe to run again, and
+ * DDL steps are skipped when {@code information_schema} shows them applied.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class SchemaMigrator {
+    private static final String LOCK_NAME = "quiz_app_schema_migration";
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        // Per-user running aggregates maintained alongside every score insert,
+        // backfilled once from the existing score history
+        MIGRATIONS.add(new Migration(1, "create user_stats",
+                step("CREATE TABLE IF NOT EXISTS user_stats ("
+                        + "username VARCHAR(255) NOT NULL PRIMARY KEY, "
+                        + "games_played INT NOT NULL DEFAULT 0, "
+                        + "total_score BIGINT NOT NULL DEFAULT 0, "
+                        + "best_score INT NOT NULL DEFAULT 0, "
+                        + "last_played DATETIME NULL)"),
+                step("INSERT INTO user_stats (username, games_played, total_score, best_score, last_played) "
+                        + "SELECT username, COUNT(*), SUM(score), MAX(score), MAX(submission_time) "
+                        + "FROM scores GROUP BY username "
+                        + "ON DUPLICATE KEY UPDATE games_played = VALUES(games_played), "
+                        + "total_score = VALUES(total_score), best_score = VALUES(best_score), "
+                        + "last_played = VALUES(last_played)")));
+
+        // Difficulty on each score for per-difficulty leaderboards, and indexes
+        // for the leaderboard seed queries
+        MIGRATIONS.add(new Migration(2, "add scores.difficulty and leaderboard indexes",
+                unlessColumnExists("scores", "difficulty",
+                        "ALTER TABLE scores ADD COLUMN difficulty VARCHAR(20) NULL"),
+                unlessIndexExists("scores", "idx_scores_score",
+                        "ALTER TABLE scores ADD INDEX idx_scores_score (score)"),
+                unlessIndexExists("scores", "idx_scores_difficulty_score",
+                        "ALTER TABLE scores ADD INDEX idx_scores_difficulty_score (difficulty, score)"),
+                unlessIndexExists("scores", "idx_scores_submission_time",
+                        "ALTER TABLE scores ADD INDEX idx_scores_submission_time (submission_time)")));
+
+        // Score histogram per difficulty, maintained with every score insert,
+        // so admin reports never scan the scores table
+        MIGRATIONS.add(new Migration(3, "create score_histogram",
+                step("CREATE TABLE IF NOT EXISTS score_histogram ("
+                        + "difficulty VARCHAR(20) NOT NULL DEFAULT '', "
+                        + "score INT NOT NULL, "
+                        + "games BIGINT NOT NULL DEFAULT 0, "
+                        + "PRIMARY KEY (difficulty, score))"),
+                step("INSERT INTO score_histogram (difficulty, score, games) "
+                        + "SELECT COALESCE(difficulty, ''), score, COUNT(*) FROM scores "
+                        + "GROUP BY COALESCE(difficulty, ''), score "
+                        + "ON DUPLICATE KEY UPDATE games = VALUES(games)")));
+
+        // Correct answer as an option index (0-3), so grading is an int compare.
+        // correctAnswer stays for older clients; rows whose text matches no option stay NULL
+        MIGRATIONS.add(new Migration(4, "add questions.correct_option",
+                unlessColumnExists("questions", "correct_option",
+                        "ALTER TABLE questions ADD COLUMN correct_option TINYINT NULL"),
+                step("UPDATE questions SET correct_option = CASE TRIM(correctAnswer) "
+                        + "WHEN TRIM(optionA) THEN 0 WHEN TRIM(optionB) THEN 1 "
+                        + "WHEN TRIM(optionC) THEN 2 WHEN TRIM(optionD) THEN 3 END "
+                        + "WHERE correct_option IS NULL")));
+
+        // Room for PBKDF2 hashes in users.password. Existing plain passwords cannot be
+        // hashed in SQL; each is replaced with a hash on the user's next successful login
+        MIGRATIONS.add(new Migration(5, "widen users.password for password hashes",
+                step("ALTER TABLE users MODIFY COLUMN password VARCHAR(255) NOT NULL")));
+
+        // Usernames are unique by constraint, so signup is a single INSERT and a
+        // duplicate is reported by the database instead of a racy check first.
+        // Stops with an explanation if duplicates already exist; those must be resolved by hand
+        MIGRATIONS.add(new Migration(6, "add unique index on users.username",
+                unlessIndexExists("users", "uq_users_username",
+                        "ALTER TABLE users ADD UNIQUE INDEX uq_users_username (username)",
+                        "SELECT COUNT(*) FROM (SELECT username FROM users GROUP BY username HAVING COUNT(*) > 1) d",
+                        "%d username(s) belong to more than one account; rename or remove the duplicates "
+                                + "in the users table, then restart to add the unique index")));
+
+        // Per-user roles replace the single hard-coded admin login. No account is
+        // created: signup reserves the name admin, so a row by that name was added by
+        // an operator and is promoted; otherwise see promoteAdmin
+        MIGRATIONS.add(new Migration(7, "add users.role",
+                unlessColumnExists("users", "role",
+                        "ALTER TABLE users ADD COLUMN role VARCHAR(20) NOT NULL DEFAULT 'player'"),
+                step("UPDATE users SET role = 'admin' WHERE username = 'admin'")));
+    }
+
+    private SchemaMigrator() {} // Static utility
+
+    // A statement that is safe to run again as it stands
+    private static Step step(String sql) {
+        return new Step(sql, null, null, null, null);
+    }
+
+    private static Step unlessColumnExists(String table, String column, String ddl) {
+        return new Step(ddl, "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                new String[] {table, column}, null, null);
+    }
+
+    private static Step unlessIndexExists(String table, String index, String ddl) {
+        return unlessIndexExists(table, index, ddl, null, null);
+    }
+
+    private static Step unlessIndexExists(String table, String index, String ddl,
+                                          String conflictQuery, String conflictMessage) {
+        return new Step(ddl, "SELECT COUNT(*) FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+                new String[] {table, index}, conflictQuery, conflictMessage);
+    }
+
+    /**
+     * Runs every migration that has not been applied yet, each in its own transaction.
+     * A MySQL named lock keeps clients that start at the same time from racing.
+     *
+     * @param connection Connection with DDL rights
+     * @throws SQLException if a migration fails; earlier migrations stay applied
+     */
+    static void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version INT NOT NULL PRIMARY KEY, "
+                    + "description VARCHAR(255) NOT NULL, "
+                    + "applied_at DATETIME NOT NULL)");
+            try (ResultSet rs = stmt.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', 30)")) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+            try {
+                applyPending(connection);
+            } finally {
+                stmt.execute("DO RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+        }
+    }
+
+    private static void applyPending(Connection connection) throws SQLException {
+        Set<Integer> applied = new HashSet<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (!applied.contains(migration.version)) {
+                apply(connection, migration);
+            }
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(
+                     "INSERT INTO schema_migrations (version, description, applied_at) VALUES (?, ?, NOW())")) {
+            for (Step step : migration.steps) {
+                if (step.guard != null && count(connection, step.guard, step.guardArgs) > 0) {
+                    continue; // Left behind by an earlier attempt
+                }
+                if (step.conflictQuery != null) {
+                    long conflicts = count(connection, step.conflictQuery, new String[0]);
+                    if (conflicts > 0) {
+                        throw new SQLException("Schema migration " + migration.version + " cannot run: "
+                                + String.format(step.conflictMessage, conflicts));
+                    }
+                }
+                stmt.execute(step.sql);
+            }
+            record.setInt(1, migration.version);
+            record.setString(2, migration.description);
+            record.executeUpdate();
+            connection.commit();
+            System.out.println("Applied schema migration " + migration.version + ": " + migration.description);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Gives an existing account the admin role, so a deployment can get its
+     * first admin without any default credential. Run at startup with the
+     * name from {@code -Dquiz.admin.username}; the user signs up as a player first.
+     *
+     * @param connection Connection to the migrated schema
+     * @param username Account to promote
+     * @throws SQLException if the update fails
+     */
+    static void promoteAdmin(Connection connection, String username) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE users SET role = 'admin' WHERE username = ? AND role <> 'admin'")) {
+            ps.setString(1, username);
+            if (ps.executeUpdate() > 0) {
+                System.out.println("Promoted " + username + " to admin");
+            } else if (count(connection, "SELECT COUNT(*) FROM users WHERE username = ?", new String[] {username}) == 0) {
+                System.err.println("quiz.admin.username: no user named " + username + "; sign up first");
+            }
+        }
+    }
+
+    private static long count(Connection connection, String sql, String[] args) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                ps.setString(i + 1, args[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * One schema change: an ordered list of steps.
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final Step[] steps;
+
+        Migration(int version, String description, Step... steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = steps;
+        }
+    }
+
+    /**
+     * One SQL statement, skipped when its guard query counts any rows. A step
+     * that can fail on existing data may carry a conflict query; if that counts
+     * any rows the migration stops with the formatted message instead of a bare SQL error.
+     */
+    private static class Step {
+        private final String sql;
+        private final String guard;
+        private final String[] guardArgs;
+        private final String conflictQuery;
+        private final String conflictMessage;
+
+        Step(String sql, String guard, String[] guardArgs, String conflictQuery, String conflictMessage) {
+            this.sql = sql;
+            this.guard = guard;
+            this.guardArgs = guardArgs;
+            this.conflictQuery = conflictQuery;
+            this.conflictMessage = conflictMessage;
+        }
+    }
+}
@@ -0,0 +1,718 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable write-behind queue for finished quiz scores.
+ * {@link #submit(String, int, String)} appends the score to a local journal and
+ * waits until it is forced to disk before returning, so an accepted score
+ * survives a crash or kill; a background writer then inserts queued scores in
+ * JDBC batches, retrying transient failures, and marks them done in the journal.
+ * <p>
+ * Forcing is a group commit: appends take the journal lock only to write,
+ * and one submitting thread at a time forces everything appended so far
+ * while the others wait for the flushed sequence number to reach theirs, so
+ * concurrent submits share one fsync instead of queueing behind each other's.
+ * <p>
+ * Scores the writer could not insert, and those beyond the
+ * {@code quiz.scores.queueCapacity} (10000) held in memory, wait in the journal
+ * and are replayed every 30 seconds until the database takes them; so are
+ * scores left by an earlier run. A row the database rejects for its data
+ * (SQLSTATE class 22 or 23, such as an over-long value) is moved to a
+ * {@code .rejected} file beside the journal instead of being retried forever.
+ * Written scores are passed on to the {@link Leaderboard}.
+ * <p>
+ * Each process locks its own journal; a second process on the same machine
+ * uses a numbered sibling, and journals whose process is gone are adopted at
+ * start. Delivery is at least once: a crash between a batch commit and its done
+ * marker replays that batch on the next start.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 2.0
+ * @since 2024
+ */
+public class ScoreSubmissionQueue {
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("quiz.scores.batchSize", 100);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("quiz.scores.queueCapacity", 10_000);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 500L;
+    private static final long REPLAY_INTERVAL_MS = 30_000L;
+    private static final long COMPACT_BYTES = 1L << 20;
+    private static final long SHUTDOWN_WAIT_MS = 10_000L;
+    private static final int MAX_JOURNALS = 100;
+
+    // Journal records, one per line, tab-separated with every text field URL-encoded:
+    //   S  seq  username  score  submittedAt  difficulty    a submitted score
+    //   D  seq                                             its score is written or rejected
+    private static final String SUBMITTED = "S";
+    private static final String DONE = "D";
+    // Offered by shutdown() to wake the writer; never written
+    private static final Entry WAKE_UP = new Entry(0, null, 0);
+
+    private final QuizRepository repository;
+    private final Leaderboard leaderboard;
+    private final Path baseFile;
+    private final Path rejectedFile;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile CommitListener commitListener;
+    private long lastReplayAttempt;
+
+    // Guarded by journalLock
+    private final Object journalLock = new Object();
+    private Path journalFile;
+    private FileChannel journal;
+    private FileChannel lockChannel;
+    private long nextSeq = 1;
+    private long backlogThrough; // Scores up to this seq may be in the journal only; 0 if none
+
+    // Guarded by flushLock
+    private final Object flushLock = new Object();
+    private long flushedSeq; // Every record up to this seq is on disk
+    private boolean flushing; // A submitting thread is forcing the journal
+
+    ScoreSubmissionQueue(QuizRepository repository, Leaderboard leaderboard, Path journalFile) {
+        this.repository = repository;
+        this.leaderboard = leaderboard;
+        this.baseFile = journalFile.toAbsolutePath();
+        this.rejectedFile = baseFile.resolveSibling(baseFile.getFileName() + ".rejected");
+        try {
+            openJournal();
+        } catch (IOException e) {
+            // Scores still reach the database; they are just not crash-safe until the next start
+            System.err.println("Could not open score journal " + baseFile + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        this.writer = new Thread(this::drainLoop, "quiz-score-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "quiz-score-flush"));
+    }
+
+    /**
+     * Default journal location, overridable with {@code -Dquiz.scores.journalFile}.
+     */
+    static Path defaultJournalFile() {
+        String configured = System.getProperty("quiz.scores.journalFile");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        return applicationJournalFile();
+    }
+
+    /**
+     * The journal the application uses when {@code quiz.scores.journalFile} is not set.
+     */
+    static Path applicationJournalFile() {
+        return Paths.get(System.getProperty("user.home"), ".quiz-game", "pending-scores.log");
+    }
+
+    /**
+     * @return true if a queue on {@code journal} would share scores with one on
+     *         {@code other}: the same file or a numbered sibling of either, which
+     *         are adopted at start
+     */
+    static boolean sharesJournal(Path journal, Path other) {
+        Path a = journal.toAbsolutePath().normalize();
+        Path b = other.toAbsolutePath().normalize();
+        if (!a.getParent().equals(b.getParent())) {
+            return false;
+        }
+        String nameA = a.getFileName().toString();
+        String nameB = b.getFileName().toString();
+        return nameA.startsWith(nameB) || nameB.startsWith(nameA);
+    }
+
+    /**
+     * Records a finished quiz for persistence. Returns once the score is in the
+     * journal on disk; the database write happens in the background. Blocks
+     * for an fsync, so call it off the event dispatch thread.
+     *
+     * @param username Player's username
+     * @param score Final score of the quiz
+     * @param difficulty Difficulty level the quiz was played at
+     */
+    public void submit(String username, int score, String difficulty) {
+        // An interrupt during a channel operation closes the journal, so hold it back until we return
+        boolean interrupted = Thread.interrupted();
+        try {
+            long queuedAt = System.nanoTime();
+            Submission submission = new Submission(username, score, difficulty, System.currentTimeMillis());
+            long seq = 0;
+            synchronized (journalLock) {
+                if (journal != null) {
+                    try {
+                        append(submitted(nextSeq, submission));
+                        seq = nextSeq++;
+                    } catch (IOException e) {
+                        System.err.println("Could not journal score for " + username + ": " + e.getMessage());
+                    }
+                }
+                // The seq is assigned and queued under one lock, so a replay never races a queued score.
+                // The writer may save it before it is forced; that is harmless, the journal only guards against loss
+                if (!running || !queue.offer(new Entry(seq, submission, queuedAt))) {
+                    if (seq == 0) {
+                        System.err.println("Could not queue or journal score; dropped score for " + username);
+                    } else {
+                        backlogThrough = Math.max(backlogThrough, seq);
+                    }
+                }
+            }
+            if (seq > 0 && !awaitFlushed(seq)) {
+                System.err.println("Score for " + username + " is queued but may not survive a crash");
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Group commit: returns once the journal is forced through {@code seq}.
+     * If no thread is forcing, this one forces everything appended so far;
+     * otherwise it waits for that force and checks again.
+     *
+     * @return false if forcing the journal failed
+     */
+    private boolean awaitFlushed(long seq) {
+        while (true) {
+            synchronized (flushLock) {
+                while (flushing && flushedSeq < seq) {
+                    try {
+                        flushLock.wait();
+                    } catch (InterruptedException e) {
+                        // Cleared on entry to submit; only a late interrupt lands here, and submit restores it
+                    }
+                }
+                if (flushedSeq >= seq) {
+                    return true;
+                }
+                flushing = true;
+            }
+            long through;
+            FileChannel channel;
+            synchronized (journalLock) {
+                through = nextSeq - 1;
+                channel = journal;
+            }
+            boolean forced = force(channel);
+            synchronized (flushLock) {
+                flushing = false;
+                if (forced) {
+                    flushedSeq = Math.max(flushedSeq, through);
+                }
+                flushLock.notifyAll();
+            }
+            if (!forced) {
+                return false;
+            }
+        }
+    }
+
+    private boolean force(FileChannel channel) {
+        try {
+            if (channel == null) {
+                throw new IOException("journal is not open");
+            }
+            channel.force(false);
+            return true;
+        } catch (ClosedChannelException e) {
+            synchronized (journalLock) {
+                // compactJournal swapped in a new journal, which it forced before closing this one
+                if (journal != channel) {
+                    return true;
+                }
+            }
+            System.err.println("Could not force score journal " + journalFile + ": journal is closed");
+            return false;
+        } catch (IOException e) {
+            System.err.println("Could not force score journal " + journalFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sets a listener told about each score submitted through this queue once
+     * it is committed, for load tests. Scores replayed from the journal are not reported.
+     */
+    void setCommitListener(CommitListener listener) {
+        this.commitListener = listener;
+    }
+
+    /**
+     * @return number of scores waiting in memory to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the writer after it flushes what is queued, waiting up to ten
+     * seconds. Anything still unwritten stays in the journal for the next start.
+     */
+    void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Not an interrupt: one landing in a journal read or write would close the channel
+        queue.offer(WAKE_UP);
+        try {
+            writer.join(SHUTDOWN_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            batch.clear();
+            try {
+                Entry first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    batch.remove(WAKE_UP);
+                }
+            } catch (InterruptedException e) {
+                // Not expected: shutdown() wakes the writer with WAKE_UP
+                continue;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            if (running && System.currentTimeMillis() - lastReplayAttempt > REPLAY_INTERVAL_MS) {
+                replayBacklog();
+            }
+            compactJournal();
+        }
+    }
+
+    /**
+     * Writes a batch and settles every entry in it: done, rejected, or left in
+     * the journal for a later replay. A data error fails the whole batch, so
+     * the batch is then written row by row to find the offending rows.
+     */
+    private void write(List<Entry> batch) {
+        SQLException failure = saveWithRetry(batch);
+        if (failure == null) {
+            markDone(batch);
+        } else if (QuizRepository.isDataError(failure) && batch.size() > 1) {
+            for (Entry entry : batch) {
+                write(List.of(entry));
+            }
+        } else if (QuizRepository.isDataError(failure)) {
+            reject(batch.get(0), failure);
+        } else {
+            System.err.println("Could not save " + batch.size() + " score(s), keeping them for replay: "
+                    + failure.getMessage());
+            synchronized (journalLock) {
+                for (Entry entry : batch) {
+                    backlogThrough = Math.max(backlogThrough, entry.seq);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return null once the batch is written, else the last failure
+     */
+    private SQLException saveWithRetry(List<Entry> batch) {
+        List<Submission> submissions = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            submissions.add(entry.submission);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                for (Leaderboard.Entry saved : repository.saveScores(submissions)) {
+                    leaderboard.record(saved);
+                }
+                CommitListener listener = commitListener;
+                if (listener != null) {
+                    long now = System.nanoTime();
+                    for (Entry entry : batch) {
+                        if (entry.queuedAt != 0) {
+                            listener.committed(entry.submission, now - entry.queuedAt);
+                        }
+                    }
+                }
+                return null;
+            } catch (SQLException e) {
+                // Shutting down: give up retrying; the batch stays in the journal
+                if (!isTransient(e) || attempt == MAX_ATTEMPTS || !running) {
+                    return e;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    return e;
+                }
+            }
+        }
+    }
+
+    private static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        // 08 = connection exception, 40 = transaction rollback (deadlock, serialization failure)
+        return state != null && (state.startsWith("08") || state.startsWith("40"));
+    }
+
+    private void markDone(List<Entry> entries) {
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+            StringBuilder lines = new StringBuilder();
+            for (Entry entry : entries) {
+                if (entry.seq > 0) {
+                    lines.append(DONE).append('\t').append(entry.seq).append('\n');
+                }
+            }
+            try {
+                // Not forced: a lost marker only means the score is written again after a crash
+                append(lines.toString());
+            } catch (IOException e) {
+                System.err.println("Could not update score journal " + journalFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void reject(Entry entry, SQLException failure) {
+        Submission s = entry.submission;
+        System.err.println("Database rejected score " + s.getScore() + " for " + s.getUsername()
+                + "; moved to " + rejectedFile + ": " + failure.getMessage());
+        try (BufferedWriter out = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(encode(s.getUsername()) + "\t" + s.getScore() + "\t" + s.getSubmittedAt()
+                    + "\t" + encode(s.getDifficulty()) + "\t" + encode(failure.getMessage()));
+            out.newLine();
+        } catch (IOException e) {
+            // Keep it in the journal rather than lose it; it will be rejected again on replay
+            System.err.println("Could not write " + rejectedFile + ": " + e.getMessage());
+            return;
+        }
+        markDone(List.of(entry));
+    }
+
+    /**
+     * Writes scores that are in the journal but neither done nor queued in
+     * memory. Only runs every 30 seconds while such scores exist.
+     */
+    private void replayBacklog() {
+        lastReplayAttempt = System.currentTimeMillis();
+        long through;
+        Set<Long> queued = new HashSet<>();
+        Path file;
+        synchronized (journalLock) {
+            if (backlogThrough == 0 || journal == null) {
+                return;
+            }
+            through = backlogThrough;
+            for (Entry entry : queue) {
+                queued.add(entry.seq);
+            }
+            file = journalFile;
+        }
+
+        Map<Long, Submission> pending;
+        try {
+            pending = readUndone(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read score journal " + file + ": " + e.getMessage());
+            return;
+        }
+        List<Entry> backlog = new ArrayList<>();
+        for (Map.Entry<Long, Submission> record : pending.entrySet()) {
+            if (record.getKey() <= through && !queued.contains(record.getKey())) {
+                backlog.add(new Entry(record.getKey(), record.getValue(), 0));
+            }
+        }
+
+        synchronized (journalLock) {
+            if (backlogThrough == through) {
+                backlogThrough = 0; // Anything that fails again below sets it back
+            }
+        }
+        for (int from = 0; from < backlog.size(); from += MAX_BATCH_SIZE) {
+            write(backlog.subList(from, Math.min(from + MAX_BATCH_SIZE, backlog.size())));
+        }
+        if (!backlog.isEmpty()) {
+            System.out.println("Replayed " + backlog.size() + " journaled score(s)");
+        }
+    }
+
+    /**
+     * Empties the journal once nothing in it is outstanding, or rewrites it
+     * with just the queued scores once it grows past a megabyte. Called by the
+     * writer between batches, so no batch is in flight.
+     */
+    private void compactJournal() {
+        synchronized (journalLock) {
+            if (journal == null || backlogThrough != 0) {
+                return;
+            }
+            try {
+                long size = journal.size();
+                if (size == 0) {
+                    return;
+                }
+                if (queue.isEmpty()) {
+                    journal.truncate(0);
+                } else if (size > COMPACT_BYTES) {
+                    List<Entry> live = new ArrayList<>(queue);
+                    StringBuilder lines = new StringBuilder();
+                    for (Entry entry : live) {
+                        if (entry.seq > 0) {
+                            lines.append(submitted(entry.seq, entry.submission));
+                        }
+                    }
+                    replaceJournal(lines.toString());
+                }
+            } catch (IOException e) {
+                System.err.println("Could not compact score journal " + journalFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Claims the first journal no other process holds, then adopts what is
+     * outstanding in it and in any journal whose process has gone, renumbered
+     * into one fresh journal.
+     */
+    private void openJournal() throws IOException {
+        Files.createDirectories(baseFile.getParent());
+        synchronized (journalLock) {
+            for (int i = 0; i < MAX_JOURNALS && lockChannel == null; i++) {
+                Path candidate = i == 0 ? baseFile : baseFile.resolveSibling(baseFile.getFileName() + "." + i);
+                FileChannel channel = tryLock(candidate);
+                if (channel != null) {
+                    journalFile = candidate;
+                    lockChannel = channel;
+                }
+            }
+            if (lockChannel == null) {
+                throw new IOException("All " + MAX_JOURNALS + " score journals are in use");
+            }
+
+            List<Submission> outstanding = new ArrayList<>(readUndone(journalFile).values());
+            List<Path> adopted = new ArrayList<>();
+            List<FileChannel> adoptedLocks = new ArrayList<>();
+            try {
+                for (Path other : siblingJournals()) {
+                    FileChannel otherLock = other.equals(journalFile) ? null : tryLock(other);
+                    if (otherLock != null) {
+                        adoptedLocks.add(otherLock);
+                        outstanding.addAll(readUndone(other).values());
+                        adopted.add(other);
+                    }
+                }
+
+                StringBuilder lines = new StringBuilder();
+                for (Submission submission : outstanding) {
+                    lines.append(submitted(nextSeq++, submission));
+                }
+                replaceJournal(lines.toString());
+                backlogThrough = nextSeq - 1;
+                for (Path other : adopted) {
+                    Files.deleteIfExists(other);
+                }
+            } finally {
+                for (int i = 0; i < adoptedLocks.size(); i++) {
+                    adoptedLocks.get(i).close();
+                    Files.deleteIfExists(lockFile(adopted.get(i)));
+                }
+            }
+            if (!outstanding.isEmpty()) {
+                System.out.println("Recovered " + outstanding.size() + " unsaved score(s) from " + baseFile.getParent());
+            }
+        }
+    }
+
+    // A separate lock file, so the journal itself can be replaced atomically
+    private static FileChannel tryLock(Path journal) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile(journal), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another queue in this JVM
+        }
+        channel.close();
+        return null;
+    }
+
+    private static Path lockFile(Path journal) {
+        return journal.resolveSibling(journal.getFileName() + ".lock");
+    }
+
+    private List<Path> siblingJournals() throws IOException {
+        String base = baseFile.getFileName().toString();
+        List<Path> journals = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(baseFile.getParent(), base + "*")) {
+            for (Path path : dir) {
+                String suffix = path.getFileName().toString().substring(base.length());
+                if (suffix.isEmpty() || suffix.matches("\\.[0-9]+")) {
+                    journals.add(path);
+                }
+            }
+        }
+        return journals;
+    }
+
+    // Write the new content beside the journal, force it, then move it into place
+    private void replaceJournal(String content) throws IOException {
+        Path temp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(true);
+        }
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void append(String lines) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            journal.write(bytes);
+        }
+    }
+
+    private static String submitted(long seq, Submission s) {
+        return SUBMITTED + "\t" + seq + "\t" + encode(s.getUsername()) + "\t" + s.getScore()
+                + "\t" + s.getSubmittedAt() + "\t" + encode(s.getDifficulty()) + "\n";
+    }
+
+    /**
+     * @return scores submitted to a journal and not marked done, by seq in journal order
+     */
+    private static Map<Long, Submission> readUndone(Path file) throws IOException {
+        Map<Long, Submission> undone = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return undone;
+        }
+        long legacySeq = -1; // Spill files from before the journal have no seq
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                try {
+                    if (parts[0].equals(SUBMITTED) && parts.length >= 6) {
+                        undone.put(Long.parseLong(parts[1]), new Submission(decode(parts[2]),
+                                Integer.parseInt(parts[3]), decode(parts[5]), Long.parseLong(parts[4])));
+                    } else if (parts[0].equals(DONE) && parts.length >= 2) {
+                        undone.remove(Long.parseLong(parts[1]));
+                    } else if (!parts[0].equals(SUBMITTED) && !parts[0].equals(DONE)
+                            && (parts.length == 3 || parts.length == 4)) {
+                        // username, score, submitted at[, difficulty]
+                        undone.put(legacySeq--, new Submission(decode(parts[0]), Integer.parseInt(parts[1]),
+                                parts.length > 3 ? decode(parts[3]) : null, Long.parseLong(parts[2])));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // A torn last line, from a crash or an append still in progress; skip it
+                }
+            }
+        }
+        return undone;
+    }
+
+    private static String encode(String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Receives scores as they are committed; called on the writer thread.
+     */
+    interface CommitListener {
+        /**
+         * @param submission The committed score
+         * @param queuedNanos Time from {@link #submit} to the commit
+         */
+        void committed(Submission submission, long queuedNanos);
+    }
+
+    /**
+     * A score and its record number in the journal (0 if it could not be journaled).
+     */
+    private static final class Entry {
+        private final long seq;
+        private final Submission submission;
+        private final long queuedAt; // System.nanoTime() at submit; 0 for scores read back from the journal
+
+        Entry(long seq, Submission submission, long queuedAt) {
+            this.seq = seq;
+            this.submission = submission;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * A finished quiz waiting to be written.
+     */
+    public static class Submission {
+        private final String username;
+        private final int score;
+        private final String difficulty;
+        private final long submittedAt;
+
+        public Submission(String username, int score, String difficulty, long submittedAt) {
+            this.username = username;
+            this.score = score;
+            this.difficulty = difficulty;
+            this.submittedAt = submittedAt;
+        }
+
+        public String getUsername() { return username; }
+        public int getScore() { return score; }
+        public String getDifficulty() { return difficulty; }
+        public long getSubmittedAt() { return submittedAt; }
+    }
+}
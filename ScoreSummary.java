@@ -0,0 +1,99 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregate statistics over quiz scores, built from the per-difficulty score
+ * histogram kept in the {@code score_histogram} summary table. Scores are
+ * bounded integers, so the histogram has one row per score seen: a few dozen
+ * for regular quizzes and up to about a thousand per timed difficulty. Count,
+ * average, extremes and percentiles are all derived from it exactly.
+ * Timed scores (see {@link QuizSession#isTimedDifficulty(String)}) are on a
+ * different scale, so they appear in {@link #getByDifficulty()} only and are
+ * left out of the overall figures.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public class ScoreSummary {
+    /** Breakdown key for scores recorded before difficulty was tracked. */
+    public static final String UNKNOWN_DIFFICULTY = "";
+
+    private final TreeMap<Integer, Long> histogram = new TreeMap<>();
+    private final Map<String, ScoreSummary> byDifficulty = new TreeMap<>();
+
+    /**
+     * Adds one histogram bucket.
+     *
+     * @param difficulty Difficulty level of the bucket
+     * @param score Score value
+     * @param games Number of quizzes that finished with this score
+     */
+    void add(String difficulty, int score, long games) {
+        if (!QuizSession.isTimedDifficulty(difficulty)) {
+            histogram.merge(score, games, Long::sum);
+        }
+        byDifficulty.computeIfAbsent(difficulty == null ? UNKNOWN_DIFFICULTY : difficulty, d -> new ScoreSummary())
+                .histogram.merge(score, games, Long::sum);
+    }
+
+    /** @return number of recorded scores */
+    public long getCount() {
+        long count = 0;
+        for (long games : histogram.values()) {
+            count += games;
+        }
+        return count;
+    }
+
+    /** @return mean score, or NaN if there are no scores */
+    public double getAverage() {
+        long count = 0;
+        long sum = 0;
+        for (Map.Entry<Integer, Long> bucket : histogram.entrySet()) {
+            count += bucket.getValue();
+            sum += bucket.getKey() * bucket.getValue();
+        }
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    /** @return lowest score, or 0 if there are no scores */
+    public int getMin() {
+        return histogram.isEmpty() ? 0 : histogram.firstKey();
+    }
+
+    /** @return highest score, or 0 if there are no scores */
+    public int getMax() {
+        return histogram.isEmpty() ? 0 : histogram.lastKey();
+    }
+
+    /**
+     * Nearest-rank percentile.
+     *
+     * @param percent Percentile in (0, 100]
+     * @return Smallest score with at least {@code percent}% of results at or below it; 0 if empty
+     */
+    public int getPercentile(double percent) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percent / 100.0 * count);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : histogram.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return bucket.getKey();
+            }
+        }
+        return histogram.lastKey();
+    }
+
+    /** @return per-difficulty summaries, keyed by difficulty name */
+    public Map<String, ScoreSummary> getByDifficulty() {
+        return Collections.unmodifiableMap(byDifficulty);
+    }
+}
@@ -0,0 +1,187 @@
+package org.example;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of logged-in {@link UserSession}s keyed by random token.
+ * Expiry is sliding: a session lives {@code quiz.session.idleTimeoutMs}
+ * (1800000) past its last use. The store holds at most
+ * {@code quiz.session.maxSessions} sessions, by default four times the
+ * {@link QuizServer}'s connection cap, and evicts the least recently used
+ * one to admit another. Sessions a server connection has attached are
+ * never evicted, so a full store cannot log out a connected player; if every
+ * session is attached, new ones are refused. The map is kept in access
+ * order, so expired and evictable sessions are found at its head.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class SessionStore {
+    private static final long IDLE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("quiz.session.idleTimeoutMs", 1_800_000L));
+    private static final int MAX_SESSIONS =
+            Integer.getInteger("quiz.session.maxSessions", 4 * QuizServer.MAX_CONNECTIONS);
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Issues a session for a user who has just been authenticated.
+     *
+     * @param username User's name
+     * @param country User's country, or null if unknown
+     * @param role One of the {@code UserSession.ROLE_} constants
+     * @return The new session
+     * @throws IllegalStateException if the store is full of attached sessions
+     */
+    public UserSession create(String username, String country, String role) {
+        return create(username, country, role, 0);
+    }
+
+    /**
+     * Issues a session already attached to the calling connection, so it
+     * cannot be evicted before {@link #attach} would have run.
+     *
+     * @see #create(String, String, String)
+     */
+    public UserSession createAttached(String username, String country, String role) {
+        return create(username, country, role, 1);
+    }
+
+    /**
+     * Marks a session as in use by an open connection until the matching
+     * {@link #detach}. Attached sessions still expire when left idle.
+     *
+     * @return false if the session has expired, been evicted or logged out
+     */
+    public synchronized boolean attach(UserSession session) {
+        Entry entry = session == null ? null : sessions.get(session.getToken());
+        if (entry == null || entry.session != session) {
+            return false;
+        }
+        entry.connections++;
+        return true;
+    }
+
+    /**
+     * Releases an {@link #attach}; does nothing if the session is gone.
+     */
+    public synchronized void detach(UserSession session) {
+        Entry entry = session == null ? null : sessions.get(session.getToken());
+        if (entry != null && entry.session == session && entry.connections > 0) {
+            entry.connections--;
+        }
+    }
+
+    private UserSession create(String username, String country, String role, int connections) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        UserSession session = new UserSession(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+                username, country, role);
+        synchronized (this) {
+            long now = System.nanoTime();
+            expire(now);
+            if (sessions.size() >= MAX_SESSIONS) {
+                evictOne();
+            }
+            Entry entry = new Entry(session, now);
+            entry.connections = connections;
+            sessions.put(session.getToken(), entry);
+        }
+        return session;
+    }
+
+    /**
+     * Looks up a session and extends its expiry.
+     *
+     * @param token Session token
+     * @return The session, or null if it has expired, been evicted or logged out
+     */
+    public synchronized UserSession get(String token) {
+        long now = System.nanoTime();
+        expire(now);
+        Entry entry = sessions.get(token);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastUsed = now;
+        return entry.session;
+    }
+
+    /**
+     * Checks that a session handle is still live, extending its expiry.
+     */
+    public boolean isActive(UserSession session) {
+        return session != null && get(session.getToken()) == session;
+    }
+
+    /**
+     * Ends a session, for logout.
+     */
+    public synchronized void invalidate(UserSession session) {
+        if (session != null) {
+            sessions.remove(session.getToken());
+        }
+    }
+
+    /** @return live sessions, counting any not yet swept after expiring */
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /** @return sessions dropped to stay within the size bound */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** @return sessions dropped after going unused for the idle timeout */
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    // The least recently used session no connection holds; with the default caps one is always found
+    private void evictOne() {
+        Iterator<Entry> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().connections == 0) {
+                iterator.remove();
+                evictions++;
+                return;
+            }
+        }
+        throw new IllegalStateException("Server is full, try again later");
+    }
+
+    // The head of an access-ordered map is the least recently used session
+    private void expire(long now) {
+        Iterator<Entry> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now - entry.lastUsed < IDLE_TIMEOUT_NANOS) {
+                return;
+            }
+            iterator.remove();
+            expirations++;
+        }
+    }
+
+    private static final class Entry {
+        private final UserSession session;
+        private long lastUsed;
+        private int connections; // Open server connections using this session
+
+        Entry(UserSession session, long lastUsed) {
+            this.session = session;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -3,7 +3,8 @@ package org.example;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Provides user registration functionality for the Quiz Application.
@@ -17,6 +18,7 @@ public class Signup extends JFrame {
     private static final long serialVersionUID = 1L;
     private JTextField usernameField, countryField;
     private JPasswordField passwordField;
+    private JButton signupBtn;
 
     // UI Constants
     private static final Color GRADIENT_START = new Color(70, 80, 90);
@@ -103,7 +105,7 @@ public class Signup extends JFrame {
         panel.add(countryField, gbc);
 
         // Signup button
-        JButton signupBtn = createButton("Sign Up", BUTTON_COLOR);
+        signupBtn = createButton("Sign Up", BUTTON_COLOR);
         gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2;
         panel.add(signupBtn, gbc);
         signupBtn.addActionListener(e -> performSignup());
@@ -142,47 +144,38 @@ public class Signup extends JFrame {
             return;
         }
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            if (isUsernameTaken(conn, username)) {
-                showError("Username already exists");
-                return;
+        // Hash and insert in the background; a taken name comes back as a duplicate key
+        signupBtn.setEnabled(false);
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                return DatabaseConnection.getRepository().registerUser(username, password, country);
             }
 
-            String sql = "INSERT INTO users (username, password, country) VALUES (?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, username);
-            stmt.setString(2, password);
-            stmt.setString(3, country);
-
-            int result = stmt.executeUpdate();
-            if (result > 0) {
-                JOptionPane.showMessageDialog(this,
-                        "Registration successful! Please login.",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                new Login().setVisible(true);
-                dispose();
+            @Override
+            protected void done() {
+                signupBtn.setEnabled(true);
+                try {
+                    if (!get()) {
+                        showError("Username already exists");
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(Signup.this,
+                            "Registration successful! Please login.",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                    new Login().setVisible(true);
+                    dispose();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof RejectedExecutionException) {
+                        showError("The server is busy. Please try again in a moment.");
+                    } else {
+                        showError("Database error: " + cause.getMessage());
+                        cause.printStackTrace();
+                    }
+                }
             }
-        } catch (Exception e) {
-            showError("Database error: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Checks if username already exists in database.
-     *
-     * @param conn Active database connection
-     * @param username Username to check
-     * @return true if username exists, false otherwise
-     * @throws SQLException if database error occurs
-     */
-    private boolean isUsernameTaken(Connection conn, String username)
-            throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        stmt.setString(1, username);
-        ResultSet rs = stmt.executeQuery();
-        return rs.next() && rs.getInt(1) > 0;
+        }.execute();
     }
 
     // Helper methods for UI components (similar to Login.java)
@@ -0,0 +1,350 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Exports the {@code scores} or {@code questions} table to a CSV or JSON file.
+ * Rows are streamed from the database one at a time and encoded straight into
+ * a fixed-size buffer in front of a file channel, so memory use does not grow
+ * with the table. The target file is replaced atomically when the export
+ * completes and left untouched if it fails or is cancelled.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class TableExporter {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+
+    /**
+     * Tables that can be exported.
+     */
+    public enum Table {
+        SCORES("scores"),
+        QUESTIONS("questions");
+
+        private final String label;
+
+        Table(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Output formats, chosen by file extension.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /** @return JSON for a {@code .json} file, CSV otherwise */
+        public static Format forFile(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    private final QuizRepository repository;
+
+    /**
+     * @param repository Source of the rows
+     */
+    public TableExporter(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Exports one table.
+     *
+     * @param table Table to export
+     * @param file File to create or replace; its extension picks the format
+     * @param progress Receives progress every {@value #PROGRESS_EVERY_ROWS} rows and at the end
+     * @param cancelled Polled between rows; when it returns true the export stops
+     * @return Number of rows written, or -1 if the export was cancelled
+     * @throws SQLException if reading the table fails
+     * @throws IOException if writing the file fails
+     */
+    public long export(Table table, Path file, Consumer<Progress> progress, BooleanSupplier cancelled)
+            throws SQLException, IOException {
+        long total = table == Table.SCORES ? repository.countScores() : repository.countQuestions();
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            RowWriter writer;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer = Format.forFile(file) == Format.JSON ? new JsonWriter(channel) : new CsvWriter(channel);
+                QuizRepository.RowConsumer consumer = new QuizRepository.RowConsumer() {
+                    @Override
+                    public void columns(String[] names) throws IOException {
+                        writer.begin(names);
+                    }
+
+                    @Override
+                    public boolean row(Object[] values) throws IOException {
+                        if (cancelled.getAsBoolean()) {
+                            return false;
+                        }
+                        writer.row(values);
+                        if (writer.rows % PROGRESS_EVERY_ROWS == 0) {
+                            progress.accept(new Progress(writer.rows, total));
+                        }
+                        return true;
+                    }
+                };
+                if (table == Table.SCORES) {
+                    repository.streamScores(consumer);
+                } else {
+                    repository.streamQuestions(consumer);
+                }
+                if (cancelled.getAsBoolean()) {
+                    return -1;
+                }
+                writer.end();
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            progress.accept(new Progress(writer.rows, Math.max(total, writer.rows)));
+            return writer.rows;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Progress of a running export.
+     */
+    public static final class Progress {
+        private final long rowsWritten;
+        private final long totalRows;
+
+        Progress(long rowsWritten, long totalRows) {
+            this.rowsWritten = rowsWritten;
+            this.totalRows = totalRows;
+        }
+
+        public long getRowsWritten() {
+            return rowsWritten;
+        }
+
+        /** @return row count taken when the export started; rows added since may push past it */
+        public long getTotalRows() {
+            return totalRows;
+        }
+
+        /** @return rows written as a percentage of the starting row count, 0 to 100 */
+        public int getPercent() {
+            return totalRows <= 0 ? 100 : (int) Math.min(100, rowsWritten * 100 / totalRows);
+        }
+    }
+
+    /**
+     * Formats rows as text and encodes them as UTF-8 into a reused buffer that is
+     * flushed to the channel whenever it fills.
+     */
+    private abstract static class RowWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final StringBuilder line = new StringBuilder(256);
+        long rows;
+
+        RowWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        abstract void begin(String[] columns) throws IOException;
+
+        abstract void row(Object[] values) throws IOException;
+
+        abstract void end() throws IOException;
+
+        /** Encodes and clears {@link #line}. */
+        void writeLine() throws IOException {
+            CharBuffer chars = CharBuffer.wrap(line);
+            while (encoder.encode(chars, buffer, false) == CoderResult.OVERFLOW) {
+                flush();
+            }
+            line.setLength(0);
+        }
+
+        void close() throws IOException {
+            writeLine();
+            while (encoder.encode(CharBuffer.allocate(0), buffer, true) == CoderResult.OVERFLOW
+                    || encoder.flush(buffer) == CoderResult.OVERFLOW) {
+                flush();
+            }
+            flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        static String text(Object value) {
+            if (value instanceof Timestamp) {
+                return ((Timestamp) value).toLocalDateTime().toString();
+            }
+            return value.toString();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; fields are quoted only when they need it.
+     */
+    private static final class CsvWriter extends RowWriter {
+        CsvWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void begin(String[] columns) throws IOException {
+            appendFields(columns);
+        }
+
+        @Override
+        void row(Object[] values) throws IOException {
+            appendFields(values);
+            rows++;
+        }
+
+        @Override
+        void end() throws IOException {
+            close();
+        }
+
+        private void appendFields(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                if (values[i] != null) {
+                    appendField(text(values[i]));
+                }
+            }
+            line.append("\r\n");
+            writeLine();
+        }
+
+        private void appendField(String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+
+    /**
+     * A JSON array with one object per row, one row per line.
+     */
+    private static final class JsonWriter extends RowWriter {
+        private String[] columns;
+
+        JsonWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void begin(String[] columns) {
+            this.columns = columns;
+            line.append('[');
+        }
+
+        @Override
+        void row(Object[] values) throws IOException {
+            line.append(rows == 0 ? "\n" : ",\n").append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendString(columns[i]);
+                line.append(':');
+                Object value = values[i];
+                if (value == null) {
+                    line.append("null");
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    line.append(value);
+                } else {
+                    appendString(text(value));
+                }
+            }
+            line.append('}');
+            writeLine();
+            rows++;
+        }
+
+        @Override
+        void end() throws IOException {
+            line.append(rows == 0 ? "]\n" : "\n]\n");
+            close();
+        }
+
+        private void appendString(String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        line.append("\\\"");
+                        break;
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                }
+            }
+            line.append('"');
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+/**
+ * A logged-in user: an opaque token plus the attributes verified at login.
+ * Screens pass this handle along instead of a bare username, so they can
+ * read the user's country and role without going back to the database.
+ * Sessions are issued and expired by {@link SessionStore}.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+public final class UserSession {
+    public static final String ROLE_PLAYER = "player";
+    public static final String ROLE_MODERATOR = "moderator";
+    public static final String ROLE_ADMIN = "admin";
+
+    private final String token;
+    private final String username;
+    private final String country;
+    private final String role;
+    private final long createdAt;
+
+    UserSession(String token, String username, String country, String role) {
+        this.token = token;
+        this.username = username;
+        this.country = country == null ? "" : country;
+        this.role = role;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /** @return the token identifying this session in the {@link SessionStore} */
+    public String getToken() {
+        return token;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /** @return the user's country, or an empty string if unknown */
+    public String getCountry() {
+        return country;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return ROLE_ADMIN.equals(role);
+    }
+
+    /** @return true for roles that use the admin console: admins and moderators */
+    public boolean isStaff() {
+        return isStaffRole(role);
+    }
+
+    /** @return true if the role may use the admin console */
+    public static boolean isStaffRole(String role) {
+        return ROLE_ADMIN.equals(role) || ROLE_MODERATOR.equals(role);
+    }
+
+    /** @return true if the role is one of the {@code ROLE_} constants */
+    public static boolean isValidRole(String role) {
+        return ROLE_PLAYER.equals(role) || isStaffRole(role);
+    }
+
+    /** @return login time in epoch milliseconds */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return username + " (" + role + ")"; // Never the token
+    }
+}
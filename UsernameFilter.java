@@ -0,0 +1,265 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every username, consulted before a login does any
+ * per-user work. A name it has seen may exist and goes through the rate
+ * limiter and password check as usual. A name it has never seen did not
+ * exist at the last build, so typos and credential-stuffing attempts against
+ * made-up names skip the rate limiter's bookkeeping and the password hash.
+ * Such a name is still looked up, because it may have been registered by
+ * another client since; a hit is added to the filter and counted as stale.
+ * <p>
+ * The filter is built in the background by streaming the {@code users}
+ * table, receives every name registered through this process, and is rebuilt
+ * every {@code quiz.auth.bloom.rebuildMs} (300000) to pick up names
+ * registered by other clients. Until the first build completes every name
+ * counts as possibly present. Sizing: {@code quiz.auth.bloom.expectedUsers}
+ * (1000000, raised to the table size if larger) and
+ * {@code quiz.auth.bloom.falsePositiveRate} (0.01).
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+final class UsernameFilter {
+    private static final int EXPECTED_USERS = Integer.getInteger("quiz.auth.bloom.expectedUsers", 1_000_000);
+    private static final double FALSE_POSITIVE_RATE =
+            Double.parseDouble(System.getProperty("quiz.auth.bloom.falsePositiveRate", "0.01"));
+    private static final long REBUILD_MS = Long.getLong("quiz.auth.bloom.rebuildMs", 300_000L);
+
+    private final QuizRepository repository;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Object swapLock = new Object(); // held to read or change both bit sets together
+    private volatile Bits current;  // null until the first build completes
+    private Bits building;          // receives new names while a rebuild streams the table
+
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong positives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private volatile long lastRebuildMillis = -1;
+
+    UsernameFilter(QuizRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Schedules the initial build and periodic rebuilds. Only the first call has any effect.
+     */
+    void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quiz-username-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, REBUILD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return false if the username did not exist when the filter was last built
+     */
+    boolean mightContain(String username) {
+        Bits bits = current;
+        if (bits == null || bits.mightContain(key(username))) {
+            positives.incrementAndGet();
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a name registered through this process.
+     */
+    void add(String username) {
+        String key = key(username);
+        Bits bits;
+        Bits next;
+        // Read both together, so a rebuild swapping them in between cannot leave the name only in the discarded set
+        synchronized (swapLock) {
+            bits = current;
+            next = building;
+        }
+        if (bits != null) {
+            bits.add(key);
+        }
+        if (next != null) {
+            next.add(key);
+        }
+    }
+
+    /**
+     * Records a name the filter passed that the database did not have.
+     */
+    void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a name the filter rejected that the database had: one registered
+     * by another client since the last build. The name is added to the filter.
+     */
+    void recordStale(String username) {
+        stale.incrementAndGet();
+        add(username);
+    }
+
+    /**
+     * Builds a fresh filter from the users table and swaps it in.
+     */
+    void rebuild() {
+        long start = System.nanoTime();
+        try {
+            Bits next = new Bits(Math.max(EXPECTED_USERS, repository.countUsers()), FALSE_POSITIVE_RATE);
+            synchronized (swapLock) {
+                building = next;
+            }
+            repository.forEachUsername(username -> next.add(key(username)));
+            synchronized (swapLock) {
+                current = next;
+                building = null;
+            }
+            lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (SQLException | RuntimeException e) {
+            // Keep the previous filter; until one is built every name passes
+            System.err.println("Could not build username filter: " + e.getMessage());
+            synchronized (swapLock) {
+                building = null;
+            }
+        }
+    }
+
+    /** @return lookups that skipped the rate limiter and password check */
+    long getNegativeCount() {
+        return negatives.get();
+    }
+
+    /** @return lookups given the full login check */
+    long getPositiveCount() {
+        return positives.get();
+    }
+
+    /** @return passed lookups the database found no user for */
+    long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    /** @return rejected lookups the database did find a user for, registered since the last build */
+    long getStaleCount() {
+        return stale.get();
+    }
+
+    /**
+     * @return observed share of unknown names the filter failed to reject
+     */
+    double getObservedFalsePositiveRate() {
+        long wrong = falsePositives.get();
+        long unknown = wrong + negatives.get() - stale.get();
+        return unknown == 0 ? 0 : (double) wrong / unknown;
+    }
+
+    /** @return false positive rate predicted from the filter's size and fill, or 1 before the first build */
+    double getExpectedFalsePositiveRate() {
+        Bits bits = current;
+        return bits == null ? 1 : bits.expectedFalsePositiveRate();
+    }
+
+    /** @return duration of the last successful build in milliseconds, or -1 if none */
+    long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("username filter: %d rejected (%d stale), %d passed, %d false positive(s) "
+                        + "(observed %.4f, expected %.4f), last build %d ms",
+                getNegativeCount(), getStaleCount(), getPositiveCount(), getFalsePositiveCount(),
+                getObservedFalsePositiveRate(), getExpectedFalsePositiveRate(), getLastRebuildMillis());
+    }
+
+    // MySQL compares usernames case-insensitively, so the filter does too
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fixed-size bit array with k probes per name, derived from one 64-bit hash
+     * by double hashing. Bits are set atomically, so adds and lookups may overlap.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int probes;
+        private final AtomicLong added = new AtomicLong();
+
+        Bits(long expected, double falsePositiveRate) {
+            long n = Math.max(1, expected);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64));
+            bitCount = 64L * words.length();
+            probes = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+
+        void add(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < probes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old = words.get(word);
+                while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask)) {
+                    old = words.get(word);
+                }
+            }
+            added.incrementAndGet();
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < probes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) probes * added.get() / bitCount), probes);
+        }
+
+        // 64-bit FNV-1a over the chars, finished with the MurmurHash3 mixer
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
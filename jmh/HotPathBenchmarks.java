@@ -0,0 +1,134 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * JMH benchmarks for the in-memory hot paths that never touch the database:
+ * grading answers and serving the cached leaderboards. The SQL paths are
+ * covered by {@link QueryBenchmarks}.
+ * Run with {@code gradle jmh -Pjmh.includes=HotPathBenchmarks}.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HotPathBenchmarks {
+    private static final String[] LABELS = {"A) ", "B) ", "C) ", "D) "};
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private Game.Question[] bank;
+    private List<Game.Question> quiz;
+    private Leaderboard.Entry[] entries;
+    private Leaderboard leaderboard;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String[] options = {"Alpha", "Bravo", "Charlie", "Delta"};
+        bank = new Game.Question[size];
+        for (int i = 0; i < size; i++) {
+            bank[i] = new Game.Question("Question " + i + "?", options[0], options[1], options[2], options[3],
+                    options[i & 3]);
+        }
+        quiz = Arrays.asList(bank).subList(0, Math.min(QuestionLoader.QUESTIONS_PER_QUIZ, size));
+
+        long now = System.currentTimeMillis();
+        Random random = new Random(99);
+        entries = new Leaderboard.Entry[size];
+        for (int i = 0; i < size; i++) {
+            int score = random.nextInt(11);
+            entries[i] = new Leaderboard.Entry(i + 1, "player" + i, score, score, "Easy",
+                    now - random.nextInt((int) TimeUnit.DAYS.toMillis(6)));
+        }
+        Leaderboard.Entry[] seed = entries;
+        leaderboard = new Leaderboard(new QuizRepository() {
+            @Override
+            long fetchMaxScoreId() {
+                return seed.length;
+            }
+
+            @Override
+            void forEachScoreForLeaderboard(int limit, long since, Consumer<Leaderboard.Entry> consumer) {
+                for (Leaderboard.Entry entry : seed) {
+                    consumer.accept(entry);
+                }
+            }
+
+            @Override
+            void forEachScoreAfter(long afterId, Consumer<Leaderboard.Entry> consumer) {
+                // Nothing new; keeps the refresh that top() starts when the boards are stale off the network
+            }
+        });
+        leaderboard.load();
+    }
+
+    // ---- Answer checking ----
+
+    /** Former Game path: compare the selected radio button's text minus its "X) " prefix. */
+    @Benchmark
+    public boolean answerRadioTextCompare() {
+        Game.Question question = bank[next++ % size];
+        int option = next & 3;
+        String buttonText = LABELS[option] + question.getOption(option);
+        return buttonText.substring(3).equals(question.getCorrectAnswer());
+    }
+
+    @Benchmark
+    public boolean answerOptionIndex() {
+        Game.Question question = bank[next++ % size];
+        return question.getCorrectOption() == (next & 3);
+    }
+
+    /** A whole quiz through QuizSession, per quiz rather than per answer. */
+    @Benchmark
+    public Object answerQuizSessionRound() {
+        QuizSession session = new QuizSession("bench", "Easy", null);
+        session.start(quiz);
+        int option = 0;
+        while (session.hasMoreQuestions()) {
+            session.answer(option++ & 3);
+        }
+        return session.finish();
+    }
+
+    // ---- Leaderboard ----
+
+    @Benchmark
+    public List<Leaderboard.Entry> leaderboardTopAllTime() {
+        return leaderboard.top(Leaderboard.ALL_DIFFICULTIES, Leaderboard.Window.ALL_TIME);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> leaderboardTop7Days() {
+        return leaderboard.top("Easy", Leaderboard.Window.LAST_7_DAYS);
+    }
+
+    @Benchmark
+    public Leaderboard.Entry leaderboardRecord() {
+        Leaderboard.Entry entry = entries[next++ % size];
+        Leaderboard.Entry recorded = new Leaderboard.Entry(entries.length + next, entry.getUsername(),
+                entry.getScore(), entry.getAverageScore(), entry.getDifficulty(), System.currentTimeMillis());
+        leaderboard.record(recorded);
+        return recorded;
+    }
+}
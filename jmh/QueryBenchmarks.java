@@ -0,0 +1,194 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the SQL behind question sampling, score saving and the
+ * leaderboard, each next to the query it replaced. Queries run against an
+ * {@link EmbeddedDatabase} through the application's own
+ * {@link ConnectionPool} and {@link QuizRepository}, so they include JDBC
+ * round trips, statement preparation and result mapping. Compare the
+ * benchmarks with each other, not with production latencies.
+ * <p>
+ * Every trial starts from a fresh database seeded with {@code rows} questions
+ * and {@code rows} scores spread over {@value #USERS} users.
+ * Run with {@code gradle jmh -Pjmh.includes=QueryBenchmarks}.
+ *
+ * @author Tenzing Kunsang Sherpa
+ * @version 1.0
+ * @since 2024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmarks {
+    private static final int USERS = 1000;
+    private static final int BATCH = 100; // ScoreSubmissionQueue's default batch size
+    private static final String[] DIFFICULTIES = QuestionImporter.DIFFICULTIES;
+
+    // Former Game question fetch: sorts every question of the difficulty on each quiz
+    private static final String ORDER_BY_RAND = "SELECT question, optionA, optionB, optionC, optionD, correctAnswer "
+            + "FROM questions WHERE difficulty = ? ORDER BY RAND() LIMIT 10";
+    // Former Game.saveScore: re-sums the user's history, then inserts
+    private static final String SUM_USER_SCORES = "SELECT SUM(score), COUNT(score) FROM scores WHERE username = ?";
+    private static final String INSERT_SCORE_WITH_AVERAGE =
+            "INSERT INTO scores (username, score, submission_time, average_score) VALUES (?, ?, NOW(), ?)";
+    // Former Home leaderboard
+    private static final String TOP_TEN_SCORES = "SELECT username, score, average_score FROM scores ORDER BY score DESC LIMIT 10";
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private EmbeddedDatabase database;
+    private QuizRepository repository;
+    private Leaderboard leaderboard;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new EmbeddedDatabase(4);
+        database.seed(rows, USERS, rows, random);
+        repository = database.getRepository();
+        leaderboard = new Leaderboard(repository);
+        leaderboard.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    // ---- Question sampling ----
+
+    @Benchmark
+    public void sampleOrderByRand(Blackhole blackhole) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(ORDER_BY_RAND)) {
+            stmt.setString(1, difficulty());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    blackhole.consume(new Game.Question(rs.getString(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5), rs.getString(6)));
+                }
+            }
+        }
+    }
+
+    /** Current path: Floyd's sampling over the cached partition, loaded by the first call. */
+    @Benchmark
+    public List<Game.Question> sampleCachedPartition() throws SQLException {
+        return repository.fetchRandomQuestions(difficulty(), QuestionLoader.QUESTIONS_PER_QUIZ);
+    }
+
+    /** What a cache miss costs: reading a whole difficulty into a partition. */
+    @Benchmark
+    public QuestionCache.Partition loadPartition() throws SQLException {
+        return repository.loadPartition(difficulty());
+    }
+
+    // ---- Score saving ----
+
+    @Benchmark
+    public double saveScoreSumHistory() throws SQLException {
+        String username = username();
+        int score = random.nextInt(11);
+        try (Connection connection = database.getConnection()) {
+            long sum = 0;
+            int count = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(SUM_USER_SCORES)) {
+                stmt.setString(1, username);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        sum = rs.getLong(1);
+                        count = rs.getInt(2);
+                    }
+                }
+            }
+            double average = (double) (sum + score) / (count + 1);
+            try (PreparedStatement stmt = connection.prepareStatement(INSERT_SCORE_WITH_AVERAGE)) {
+                stmt.setString(1, username);
+                stmt.setInt(2, score);
+                stmt.setDouble(3, average);
+                stmt.executeUpdate();
+            }
+            return average;
+        }
+    }
+
+    /** Current path for one score: insert plus the user_stats and score_histogram upserts in one transaction. */
+    @Benchmark
+    public List<Leaderboard.Entry> saveScores() throws SQLException {
+        return repository.saveScores(List.of(submission()));
+    }
+
+    /** The same, per score, when the score queue writes a full batch. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Leaderboard.Entry> saveScoresBatch() throws SQLException {
+        List<ScoreSubmissionQueue.Submission> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(submission());
+        }
+        return repository.saveScores(batch);
+    }
+
+    // ---- Leaderboard ----
+
+    @Benchmark
+    public void leaderboardTopTen(Blackhole blackhole) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(TOP_TEN_SCORES);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(new Leaderboard.Entry(rs.getString(1), rs.getInt(2), rs.getDouble(3), null, 0L));
+            }
+        }
+    }
+
+    /** Current seed: top rows overall and per difficulty plus the last seven days, read once at startup. */
+    @Benchmark
+    public Leaderboard leaderboardLoad() throws SQLException {
+        Leaderboard fresh = new Leaderboard(repository);
+        fresh.load();
+        return fresh;
+    }
+
+    /** Current on-demand refresh: scores by id range past the last one seen. */
+    @Benchmark
+    public void leaderboardRefresh() throws SQLException {
+        leaderboard.refresh();
+    }
+
+    private ScoreSubmissionQueue.Submission submission() {
+        return new ScoreSubmissionQueue.Submission(username(), random.nextInt(11), difficulty(),
+                System.currentTimeMillis());
+    }
+
+    private String username() {
+        return "player" + random.nextInt(USERS);
+    }
+
+    private String difficulty() {
+        return DIFFICULTIES[random.nextInt(DIFFICULTIES.length)];
+    }
+}